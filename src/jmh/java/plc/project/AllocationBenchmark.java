@@ -0,0 +1,48 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of creating runtime values. Run it with the GC profiler,
+ * e.g. gradle jmh --args="AllocationBenchmark -prof gc", and compare
+ * gc.alloc.rate.norm for the bytes allocated per operation.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+
+    private BigInteger value;
+    private Ast.Source loop;
+
+    @Setup
+    public void setup() {
+        value = BigInteger.valueOf(42);
+        loop = Programs.analyze(Programs.loop(1_000));
+    }
+
+    @Benchmark
+    public Environment.PlcObject create() {
+        return Environment.create(value);
+    }
+
+    @Benchmark
+    public Object interpreterLoop() {
+        return new Interpreter(new Scope(null)).visit(loop).getValue();
+    }
+
+}
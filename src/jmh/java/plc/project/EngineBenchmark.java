@@ -0,0 +1,67 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the execution engines on loop-heavy and call-heavy programs.
+ * Compilation is included in the measured time, since each run starts from
+ * the AST.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+
+    private Ast.Source loop;
+    private Ast.Source fib;
+
+    @Setup
+    public void setup() {
+        loop = Programs.analyze(Programs.loop(100_000));
+        fib = Programs.analyze(Programs.fib(15));
+    }
+
+    @Benchmark
+    public Object interpreterLoop() {
+        return new Interpreter(new Scope(null)).visit(loop).getValue();
+    }
+
+    @Benchmark
+    public Object closureLoop() {
+        return new ClosureCompiler(new Scope(null)).run(loop).getValue();
+    }
+
+    @Benchmark
+    public Object virtualMachineLoop() {
+        return new VirtualMachine(new Scope(null)).run(loop).getValue();
+    }
+
+    @Benchmark
+    public Object interpreterFib() {
+        return new Interpreter(new Scope(null)).visit(fib).getValue();
+    }
+
+    @Benchmark
+    public Object closureFib() {
+        return new ClosureCompiler(new Scope(null)).run(fib).getValue();
+    }
+
+    @Benchmark
+    public Object virtualMachineFib() {
+        return new VirtualMachine(new Scope(null)).run(fib).getValue();
+    }
+
+}
@@ -0,0 +1,61 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the ^ operator over growing exponents, for results that fit in a
+ * long and for ones that need a BigInteger or BigDecimal.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PowerBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int exponent;
+
+    private Environment.PlcObject one;
+    private Environment.PlcObject three;
+    private Environment.PlcObject decimal;
+    private Environment.PlcObject power;
+
+    @Setup
+    public void setup() {
+        one = Environment.create(BigInteger.ONE);
+        three = Environment.create(BigInteger.valueOf(3));
+        decimal = Environment.create(new BigDecimal("1.0001"));
+        power = Environment.create(BigInteger.valueOf(exponent));
+    }
+
+    @Benchmark
+    public Environment.PlcObject primitive() {
+        return Operators.power(one, power);
+    }
+
+    @Benchmark
+    public Environment.PlcObject integer() {
+        return Operators.power(three, power);
+    }
+
+    @Benchmark
+    public Environment.PlcObject decimal() {
+        return Operators.power(decimal, power);
+    }
+
+}
@@ -0,0 +1,110 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Sample programs for the benchmarks, built directly as ASTs.
+ */
+final class Programs {
+
+    private Programs() {}
+
+    /**
+     * <pre>
+     * FUN main(): Integer DO
+     *     LET total = 0; LET i = 0;
+     *     WHILE i < iterations DO total = total + i * i; i = i + 1; END
+     *     RETURN total;
+     * END
+     * </pre>
+     */
+    static Ast.Source loop(int iterations) {
+        return new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Declaration("total", Optional.empty(), Optional.of(literal(0))),
+                        new Ast.Statement.Declaration("i", Optional.empty(), Optional.of(literal(0))),
+                        new Ast.Statement.While(
+                                new Ast.Expression.Binary("<", access("i"), literal(iterations)),
+                                Arrays.asList(
+                                        new Ast.Statement.Assignment(access("total"), new Ast.Expression.Binary("+",
+                                                access("total"),
+                                                new Ast.Expression.Binary("*", access("i"), access("i"))
+                                        )),
+                                        new Ast.Statement.Assignment(access("i"), new Ast.Expression.Binary("+", access("i"), literal(1)))
+                                )
+                        ),
+                        new Ast.Statement.Return(access("total"))
+                ))
+        ));
+    }
+
+    /**
+     * <pre>
+     * FUN fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END
+     * FUN main(): Integer DO RETURN fib(n); END
+     * </pre>
+     */
+    static Ast.Source fib(int n) {
+        return new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("fib", Arrays.asList("n"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.If(
+                                new Ast.Expression.Binary("<", access("n"), literal(2)),
+                                Arrays.asList(new Ast.Statement.Return(access("n"))),
+                                Arrays.asList()
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Function("fib", Arrays.asList(new Ast.Expression.Binary("-", access("n"), literal(1)))),
+                                new Ast.Expression.Function("fib", Arrays.asList(new Ast.Expression.Binary("-", access("n"), literal(2))))
+                        ))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Function("fib", Arrays.asList(literal(n))))
+                ))
+        ));
+    }
+
+    /**
+     * <pre>
+     * FUN count(n: Integer): Integer DO IF n == 0 DO RETURN 0; END RETURN 1 + count(n - 1); END
+     * FUN main(): Integer DO RETURN count(depth); END
+     * </pre>
+     */
+    static Ast.Source count(int depth) {
+        return new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("count", Arrays.asList("n"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.If(
+                                new Ast.Expression.Binary("==", access("n"), literal(0)),
+                                Arrays.asList(new Ast.Statement.Return(literal(0))),
+                                Arrays.asList()
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                literal(1),
+                                new Ast.Expression.Function("count", Arrays.asList(new Ast.Expression.Binary("-", access("n"), literal(1))))
+                        ))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Function("count", Arrays.asList(literal(depth))))
+                ))
+        ));
+    }
+
+    /**
+     * Returns the source after running the analyzer over it, which the
+     * execution engines rely on for effects and bounded arithmetic.
+     */
+    static Ast.Source analyze(Ast.Source ast) {
+        new Analyzer(new Scope(null)).visit(ast);
+        return ast;
+    }
+
+    static Ast.Expression.Access access(String name) {
+        return new Ast.Expression.Access(Optional.empty(), name);
+    }
+
+    static Ast.Expression.Literal literal(long value) {
+        return new Ast.Expression.Literal(BigInteger.valueOf(value));
+    }
+
+}
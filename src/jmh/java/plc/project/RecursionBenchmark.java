@@ -0,0 +1,47 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures function returns in the interpreter, with deep recursion where
+ * every return unwinds through a tall stack and wide recursion where there
+ * are many returns from a shallow one.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecursionBenchmark {
+
+    private Ast.Source deep;
+    private Ast.Source wide;
+
+    @Setup
+    public void setup() {
+        deep = Programs.analyze(Programs.count(500));
+        wide = Programs.analyze(Programs.fib(12));
+    }
+
+    @Benchmark
+    public Object deepRecursion() {
+        return new Interpreter(new Scope(null)).visit(deep).getValue();
+    }
+
+    @Benchmark
+    public Object wideRecursion() {
+        return new Interpreter(new Scope(null)).visit(wide).getValue();
+    }
+
+}
@@ -0,0 +1,62 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares function lookups in {@link Scope} with the previous table keyed
+ * by {@code name + "/" + arity} strings, which is reproduced here.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScopeBenchmark {
+
+    private static final String[] NAMES = {"print", "logarithm", "fib", "sum", "square", "max", "min", "main"};
+
+    private Scope scope;
+    private Map<String, Environment.Function> keyed;
+    private String name;
+    private int arity;
+
+    @Setup
+    public void setup() {
+        scope = new Scope(null);
+        keyed = new HashMap<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            Environment.Function function = scope.defineFunction(NAMES[i], i % 3, args -> Environment.NIL);
+            keyed.put(NAMES[i] + "/" + (i % 3), function);
+        }
+        // built at runtime so the JIT can't fold the key
+        name = new StringBuilder("fib").toString();
+        arity = 2;
+    }
+
+    @Benchmark
+    public Environment.Function arityTable() {
+        return scope.lookupFunction(name, arity);
+    }
+
+    @Benchmark
+    public Environment.Function stringKeys() {
+        if (keyed.containsKey(name + "/" + arity)) {
+            return keyed.get(name + "/" + arity);
+        }
+        throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+    }
+
+}
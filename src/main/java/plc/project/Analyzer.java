@@ -12,6 +12,12 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
     public Scope scope;
     private Ast.Function function;
+    private final Map<Ast.Expression, Range> ranges = new IdentityHashMap<>();
+    private final Map<Environment.Variable, Range> constants = new IdentityHashMap<>();
+    private final Set<Environment.Variable> locals = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Environment.Variable> lists = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<String> assigned = new HashSet<>();
+    private Environment.Effect effect = Environment.Effect.PURE;
 
     public Analyzer(Scope parent) {
         scope = new Scope(parent);
@@ -55,6 +61,13 @@ public final class Analyzer implements Ast.Visitor<Void> {
         String name = ast.getName();
         Environment.Variable variable = scope.defineVariable(name, name, envType, ast.getMutable(), Environment.NIL);
         ast.setVariable(variable);
+        if (!ast.getMutable() && present && ranges.containsKey(ast.getValue().get())) {
+            constants.put(variable, ranges.get(ast.getValue().get()));
+        }
+        if (present && holdsList(ast.getValue().get())) {
+            lists.add(variable);
+        }
+
         return null;
     }
 
@@ -75,12 +88,32 @@ public final class Analyzer implements Ast.Visitor<Void> {
         Environment.Function fun = scope.defineFunction(name, name, params, type, args -> Environment.NIL);
         ast.setFunction(fun);
 
+        Scope parent = scope;
         scope = new Scope(scope);
         function = ast;
+        locals.clear();
+        assigned.clear();
+        assigned(ast.getStatements());
+        List<String> parameters = ast.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            Environment.Type paramType = i < params.size() ? params.get(i) : Environment.Type.ANY;
+            locals.add(scope.defineVariable(parameters.get(i), parameters.get(i), paramType, true, Environment.NIL));
+        }
 
-        List<Ast.Statement> statements = ast.getStatements();
-        for (int i = 0; i < statements.size(); i++)
-            visit(statements.get(i));
+        // recursive calls see the function as pure until its body proves otherwise
+        effect = Environment.Effect.PURE;
+        fun.setEffect(effect);
+
+        try {
+            List<Ast.Statement> statements = ast.getStatements();
+            for (int i = 0; i < statements.size(); i++)
+                visit(statements.get(i));
+
+            fun.setEffect(effect);
+        } finally {
+            scope = parent;
+            function = null;
+        }
 
         return null;
     }
@@ -111,7 +144,20 @@ public final class Analyzer implements Ast.Visitor<Void> {
         }
 
         if (valPresent) {
+            // list literals take the declared type, or else the type all their values share
+            if (val.get() instanceof Ast.Expression.PlcList) {
+                ((Ast.Expression.PlcList) val.get()).setType(Objects.isNull(envType) ? Environment.Type.ANY : envType);
+            }
+
             visit(val.get());
+            if (!typePresent && val.get() instanceof Ast.Expression.PlcList) {
+                List<Environment.Type> types = new ArrayList<>();
+                ((Ast.Expression.PlcList) val.get()).getValues().forEach(value -> types.add(value.getType()));
+                if (!types.isEmpty() && Collections.frequency(types, types.get(0)) == types.size()) {
+                    ((Ast.Expression.PlcList) val.get()).setType(types.get(0));
+                }
+            }
+
             if (Objects.isNull(envType)) {
                 envType = val.get().getType();
             }
@@ -122,6 +168,12 @@ public final class Analyzer implements Ast.Visitor<Void> {
         String name = ast.getName();
         Environment.Variable var = scope.defineVariable(name, name, envType, true, Environment.NIL);
         ast.setVariable(var);
+        locals.add(var);
+        // a local that is never assigned keeps the range of its value, but
+        // loop variables are assigned and so stay unbounded
+        if (function != null && valPresent && envType == Environment.Type.INTEGER && !assigned.contains(name) && ranges.containsKey(val.get())) {
+            constants.put(var, ranges.get(val.get()));
+        }
         return null;
     }
 
@@ -135,6 +187,13 @@ public final class Analyzer implements Ast.Visitor<Void> {
         visit(receiver);
         visit(value);
         requireAssignable(receiver.getType(), value.getType());
+
+        // lists may be shared with the caller or a global, so any indexed write is a side effect
+        Ast.Expression.Access access = (Ast.Expression.Access) receiver;
+        if (!locals.contains(access.getVariable()) || access.getOffset().isPresent()) {
+            effect = effect.join(Environment.Effect.EFFECTFUL);
+        }
+
         return null;
     }
 
@@ -171,12 +230,19 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
         List<Ast.Statement.Case> cases = ast.getCases();
         int offset = cases.size() - 1;
+        Map<Object, Integer> table = new HashMap<>();
         for (int i = 0; i < offset; i++) {
             Ast.Statement.Case caseBlock = cases.get(i);
             Ast.Expression val = caseBlock.getValue().get();
             visit(val);
             requireAssignable(condition.getType(), val.getType());
             visit(caseBlock);
+            if (table != null && val instanceof Ast.Expression.Literal && ((Ast.Expression.Literal) val).getLiteral() != null) {
+                // the first of several equal cases is the one that runs
+                table.putIfAbsent(((Ast.Expression.Literal) val).getLiteral(), i);
+            } else {
+                table = null;
+            }
         }
 
         boolean present = cases.get(offset).getValue().isPresent();
@@ -186,6 +252,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             visit(cases.get(offset));
         }
 
+        ast.setJumpTable(table);
         return null;
     }
 
@@ -220,6 +287,9 @@ public final class Analyzer implements Ast.Visitor<Void> {
         visit(val);
         Environment.Function fun = function.getFunction();
         requireAssignable(fun.getReturnType(), val.getType());
+        if (val instanceof Ast.Expression.Function) {
+            ast.setTailCall(((Ast.Expression.Function) val).getFunction() == fun);
+        }
         return null;
     }
 
@@ -241,6 +311,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             }
 
             ast.setType(Environment.Type.INTEGER);
+            range(ast, new Range(bigInt, bigInt), true);
         } else if (ast.getLiteral() instanceof BigDecimal) {
             BigDecimal bigDec = (BigDecimal) literal;
             double litDub = bigDec.doubleValue();
@@ -259,6 +330,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
         if ((ast.getExpression() instanceof Ast.Expression.Binary)) {
             visit(ast.getExpression());
             ast.setType(ast.getExpression().getType());
+            range(ast, ranges.get(ast.getExpression()), ast.getExpression().isBounded());
             return null;
         }
 
@@ -271,6 +343,9 @@ public final class Analyzer implements Ast.Visitor<Void> {
             String op = ast.getOperator();
             visit(ast.getLeft());
             visit(ast.getRight());
+            if (ranges.containsKey(ast.getLeft()) && ranges.containsKey(ast.getRight())) {
+                range(ast, Range.of(op, ranges.get(ast.getLeft()), ranges.get(ast.getRight())), ast.getLeft().isBounded() && ast.getRight().isBounded());
+            }
             if (op.equals("&&")) {
                 if ((ast.getLeft().getType().equals(Environment.Type.BOOLEAN)) && (ast.getRight().getType().equals(Environment.Type.BOOLEAN))) {
                     ast.setType(Environment.Type.BOOLEAN);
@@ -286,28 +361,28 @@ public final class Analyzer implements Ast.Visitor<Void> {
                     throw new RuntimeException("BOOLEAN type must be on both sides of comparison!");
                 }
             } else if (op.equals(">")) {
-                if ((ast.getLeft().getType().equals(Environment.Type.COMPARABLE)) && (ast.getRight().getType().equals(Environment.Type.COMPARABLE))) {
+                if (isComparable(ast.getLeft().getType()) && ast.getLeft().getType().equals(ast.getRight().getType())) {
                     ast.setType(Environment.Type.BOOLEAN);
                     return null;
                 } else {
                     throw new RuntimeException("COMPARABLE type must be present on both sides!");
                 }
             } else if (op.equals("<")) {
-                if ((ast.getLeft().getType().equals(Environment.Type.COMPARABLE)) && (ast.getRight().getType().equals(Environment.Type.COMPARABLE))) {
+                if (isComparable(ast.getLeft().getType()) && ast.getLeft().getType().equals(ast.getRight().getType())) {
                     ast.setType(Environment.Type.BOOLEAN);
                     return null;
                 } else {
                     throw new RuntimeException("COMPARABLE type must be present on both sides!");
                 }
             } else if (op.equals("==")) {
-                if ((ast.getLeft().getType().equals(Environment.Type.COMPARABLE)) && (ast.getRight().getType().equals(Environment.Type.COMPARABLE))) {
+                if (isComparable(ast.getLeft().getType()) && ast.getLeft().getType().equals(ast.getRight().getType())) {
                     ast.setType(Environment.Type.BOOLEAN);
                     return null;
                 } else {
                     throw new RuntimeException("COMPARABLE type must be present on both sides!");
                 }
             } else if (op.equals("!=")) {
-                if ((ast.getLeft().getType().equals(Environment.Type.COMPARABLE)) && (ast.getRight().getType().equals(Environment.Type.COMPARABLE))) {
+                if (isComparable(ast.getLeft().getType()) && ast.getLeft().getType().equals(ast.getRight().getType())) {
                     ast.setType(Environment.Type.BOOLEAN);
                     return null;
                 } else {
@@ -393,15 +468,36 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
         Environment.Variable env = scope.lookupVariable(name);
         ast.setVariable(env);
+        // the elements of an immutable global list can still be changed, even
+        // when it's read without an offset and passed on to another function
+        if (!locals.contains(env) && (env.getMutable() || present || lists.contains(env))) {
+            effect = effect.join(Environment.Effect.READ_ONLY);
+        }
+        if (!present && constants.containsKey(env)) {
+            range(ast, constants.get(env), true);
+        }
+
         return null;
     }
 
+    /**
+     * Returns whether the value may be a list, meaning it isn't a literal or
+     * an operator (which only produce scalars).
+     */
+    private static boolean holdsList(Ast.Expression ast) {
+        if (ast instanceof Ast.Expression.Group) {
+            return holdsList(((Ast.Expression.Group) ast).getExpression());
+        }
+        return !(ast instanceof Ast.Expression.Literal || ast instanceof Ast.Expression.Binary);
+    }
+
     @Override
     public Void visit(Ast.Expression.Function ast) {
         String name = ast.getName();
         List<Ast.Expression> arguments = ast.getArguments();
         Environment.Function fun = scope.lookupFunction(name, arguments.size());
         ast.setFunction(fun);
+        effect = effect.join(fun.getEffect());
         List<Environment.Type> parameters = fun.getParameterTypes();
         for (int i = 0; i < parameters.size(); i++) {
             visit(arguments.get(i));
@@ -414,9 +510,6 @@ public final class Analyzer implements Ast.Visitor<Void> {
     @Override
     public Void visit(Ast.Expression.PlcList ast) {
         Environment.Type envType = ast.getType();
-        if (envType.equals(Environment.Type.ANY))
-            return null;
-
         List<Ast.Expression> values = ast.getValues();
         for (int i = 0; i < ast.getValues().size(); i++) {
             visit(values.get(i));
@@ -427,6 +520,43 @@ public final class Analyzer implements Ast.Visitor<Void> {
         return null;
     }
 
+    /**
+     * Collects the names of the variables assigned without an offset in the
+     * statements, including nested blocks.
+     */
+    private void assigned(List<Ast.Statement> statements) {
+        for (Ast.Statement statement : statements) {
+            if (statement instanceof Ast.Statement.Assignment) {
+                Ast.Expression receiver = ((Ast.Statement.Assignment) statement).getReceiver();
+                if (receiver instanceof Ast.Expression.Access && !((Ast.Expression.Access) receiver).getOffset().isPresent()) {
+                    assigned.add(((Ast.Expression.Access) receiver).getName());
+                }
+            } else if (statement instanceof Ast.Statement.If) {
+                assigned(((Ast.Statement.If) statement).getThenStatements());
+                assigned(((Ast.Statement.If) statement).getElseStatements());
+            } else if (statement instanceof Ast.Statement.Switch) {
+                ((Ast.Statement.Switch) statement).getCases().forEach(current -> assigned(current.getStatements()));
+            } else if (statement instanceof Ast.Statement.While) {
+                assigned(((Ast.Statement.While) statement).getStatements());
+            }
+        }
+    }
+
+    /**
+     * Records the value range of an INTEGER expression, marking it bounded if
+     * the range and its operands fit in a {@code long}.
+     */
+    private void range(Ast.Expression ast, Range range, boolean operands) {
+        if (range != null) {
+            ranges.put(ast, range);
+            ast.setBounded(operands && range.fitsLong());
+        }
+    }
+
+    private static boolean isComparable(Environment.Type type) {
+        return type.equals(Environment.Type.COMPARABLE) || type.equals(Environment.Type.INTEGER) || type.equals(Environment.Type.DECIMAL) || type.equals(Environment.Type.CHARACTER) || type.equals(Environment.Type.STRING);
+    }
+
     public static void requireAssignable(Environment.Type target, Environment.Type type) {
         if (target.equals(type))
             return;
@@ -441,4 +571,59 @@ public final class Analyzer implements Ast.Visitor<Void> {
             throw new RuntimeException("Cannot assign target to specified type!");
         }
     }
+
+    /**
+     * An inclusive range of values an INTEGER expression can evaluate to.
+     */
+    private static final class Range {
+
+        private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+        private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+        private final BigInteger minimum;
+        private final BigInteger maximum;
+
+        private Range(BigInteger minimum, BigInteger maximum) {
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        private boolean fitsLong() {
+            return minimum.compareTo(LONG_MIN) >= 0 && maximum.compareTo(LONG_MAX) <= 0;
+        }
+
+        private BigInteger magnitude() {
+            return minimum.abs().max(maximum.abs());
+        }
+
+        /**
+         * Returns the range of a binary operation, or {@code null} if the
+         * operator doesn't produce an INTEGER or the range can't be bounded.
+         */
+        private static Range of(String operator, Range left, Range right) {
+            switch (operator) {
+                case "+":
+                    return new Range(left.minimum.add(right.minimum), left.maximum.add(right.maximum));
+                case "-":
+                    return new Range(left.minimum.subtract(right.maximum), left.maximum.subtract(right.minimum));
+                case "*":
+                    List<BigInteger> products = Arrays.asList(
+                            left.minimum.multiply(right.minimum), left.minimum.multiply(right.maximum),
+                            left.maximum.multiply(right.minimum), left.maximum.multiply(right.maximum));
+                    return new Range(Collections.min(products), Collections.max(products));
+                case "/":
+                    return new Range(left.magnitude().negate(), left.magnitude());
+                case "^":
+                    if (right.maximum.compareTo(BigInteger.valueOf(Long.SIZE)) > 0) {
+                        return null;
+                    }
+                    BigInteger bound = left.magnitude().pow(Math.max(right.maximum.intValue(), 0)).max(BigInteger.ONE);
+                    return new Range(bound.negate(), bound);
+                default:
+                    return null;
+            }
+        }
+
+    }
+
 }
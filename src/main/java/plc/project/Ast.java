@@ -2,6 +2,7 @@ package plc.project;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -374,6 +375,7 @@ public abstract class Ast {
 
             private final Ast.Expression condition;
             private final List<Ast.Statement.Case> cases;
+            private Map<Object, Integer> jumpTable = null;
 
             public Switch(Ast.Expression condition, List<Ast.Statement.Case> cases) {
                 this.condition = condition;
@@ -386,6 +388,19 @@ public abstract class Ast {
 
             public List<Ast.Statement.Case> getCases() { return cases; }
 
+            /**
+             * Returns the index of the case for each case value, present if
+             * the analyzer found every case value is a literal. Values not in
+             * the table run the default case.
+             */
+            public Optional<Map<Object, Integer>> getJumpTable() {
+                return Optional.ofNullable(jumpTable);
+            }
+
+            public void setJumpTable(Map<Object, Integer> jumpTable) {
+                this.jumpTable = jumpTable;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Switch &&
@@ -476,6 +491,7 @@ public abstract class Ast {
         public static final class Return extends Statement {
 
             private final Ast.Expression value;
+            private boolean tailCall = false;
 
             public Return(Ast.Expression value) {
                 this.value = value;
@@ -485,6 +501,19 @@ public abstract class Ast {
                 return value;
             }
 
+            /**
+             * Returns {@code true} if the analyzer found the value is a call
+             * to the enclosing function, which can reuse the current call
+             * instead of nesting a new one.
+             */
+            public boolean isTailCall() {
+                return tailCall;
+            }
+
+            public void setTailCall(boolean tailCall) {
+                this.tailCall = tailCall;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Return &&
@@ -504,8 +533,23 @@ public abstract class Ast {
 
     public static abstract class Expression extends Ast {
 
+        private boolean bounded = false;
+
         public abstract Environment.Type getType();
 
+        /**
+         * Returns {@code true} if the analyzer proved this INTEGER expression,
+         * and every intermediate result computed while evaluating it, fits in
+         * a 64-bit {@code long}.
+         */
+        public boolean isBounded() {
+            return bounded;
+        }
+
+        public void setBounded(boolean bounded) {
+            this.bounded = bounded;
+        }
+
         public static final class Literal extends Ast.Expression {
 
             private final Object literal;
@@ -712,6 +756,7 @@ public abstract class Ast {
 
             private final String name;
             private final List<Ast.Expression> arguments;
+            private final CallSite callSite = new CallSite();
             private Environment.Function function = null;
 
             public Function(String name, List<Ast.Expression> arguments) {
@@ -727,6 +772,14 @@ public abstract class Ast {
                 return arguments;
             }
 
+            /**
+             * Returns the inline cache used by the interpreter to resolve
+             * the called function.
+             */
+            public CallSite getCallSite() {
+                return callSite;
+            }
+
             public Environment.Function getFunction() {
                 if (function == null) {
                     throw new IllegalStateException("function is uninitialized");
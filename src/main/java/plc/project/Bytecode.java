@@ -0,0 +1,149 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instruction set of the register-based {@link VirtualMachine}. Each function
+ * is compiled by {@link BytecodeCompiler} into a {@link Chunk}: a flat array
+ * of int-coded instructions, a constant pool, and the number of registers
+ * its frame needs. Parameters occupy the first registers of the frame,
+ * followed by local variables and then temporaries.
+ * <p>
+ * An instruction is its opcode followed by a fixed number of operands, listed
+ * below. {@code r} operands are registers, {@code k} operands index the
+ * constant pool and {@code t} operands are jump targets in the code array.
+ */
+public final class Bytecode {
+
+    /** {@code CONST r k}: loads a constant value. */
+    public static final int CONST = 0;
+    /** {@code MOVE r r}: copies the second register into the first. */
+    public static final int MOVE = 1;
+    /** {@code GET_GLOBAL r k}: reads a global {@link Environment.Variable}. */
+    public static final int GET_GLOBAL = 2;
+    /** {@code SET_GLOBAL k r}: writes a mutable global. */
+    public static final int SET_GLOBAL = 3;
+    /** {@code GET_NAME r k}: reads a variable by name, resolved when executed. */
+    public static final int GET_NAME = 4;
+    /** {@code SET_NAME k r}: writes a variable by name, resolved when executed. */
+    public static final int SET_NAME = 5;
+    /** {@code ADD r r r bounded}, and likewise for SUB and MUL. */
+    public static final int ADD = 6;
+    public static final int SUB = 7;
+    public static final int MUL = 8;
+    /** {@code DIV r r r}, and likewise for POW and the comparisons. */
+    public static final int DIV = 9;
+    public static final int POW = 10;
+    public static final int LT = 11;
+    public static final int GT = 12;
+    public static final int EQ = 13;
+    public static final int NE = 14;
+    /** {@code BOOLEAN r}: fails unless the register holds a Boolean. */
+    public static final int BOOLEAN = 15;
+    /** {@code COMPARABLE r}: fails unless the register holds a Comparable. */
+    public static final int COMPARABLE = 16;
+    /** {@code GET_INDEX r r r}: reads the element of a list at an offset. */
+    public static final int GET_INDEX = 17;
+    /** {@code SET_INDEX r r r}: writes a value to a list at an offset. */
+    public static final int SET_INDEX = 18;
+    /** {@code LIST r r n}: creates a list from {@code n} consecutive registers. */
+    public static final int LIST = 19;
+    /** {@code CALL r k r n}: calls a {@link Chunk} or {@link Environment.Function}. */
+    public static final int CALL = 20;
+    /** {@code CALL_NAME r k r n}: calls a function by name, resolved when executed. */
+    public static final int CALL_NAME = 21;
+    /** {@code JUMP t} */
+    public static final int JUMP = 22;
+    /** {@code JUMP_FALSE r t}: jumps if the register holds FALSE, failing unless it's a Boolean. */
+    public static final int JUMP_FALSE = 23;
+    /** {@code JUMP_TRUE r t}: jumps if the register holds TRUE, failing unless it's a Boolean. */
+    public static final int JUMP_TRUE = 24;
+    /** {@code JUMP_UNEQUAL r r t}: jumps unless two Comparable values are equal. */
+    public static final int JUMP_UNEQUAL = 25;
+    /** {@code RETURN r} */
+    public static final int RETURN = 26;
+    /** {@code FAIL k}: throws a RuntimeException with a constant message. */
+    public static final int FAIL = 27;
+
+    private static final String[] NAMES = {
+            "CONST", "MOVE", "GET_GLOBAL", "SET_GLOBAL", "GET_NAME", "SET_NAME",
+            "ADD", "SUB", "MUL", "DIV", "POW", "LT", "GT", "EQ", "NE", "BOOLEAN", "COMPARABLE",
+            "GET_INDEX", "SET_INDEX", "LIST", "CALL", "CALL_NAME",
+            "JUMP", "JUMP_FALSE", "JUMP_TRUE", "JUMP_UNEQUAL", "RETURN", "FAIL"
+    };
+
+    private static final int[] OPERANDS = {
+            2, 2, 2, 2, 2, 2,
+            4, 4, 4, 3, 3, 3, 3, 3, 3, 1, 1,
+            3, 3, 3, 4, 4,
+            1, 2, 2, 3, 1, 1
+    };
+
+    private Bytecode() {}
+
+    /**
+     * Returns the number of operands following the given opcode.
+     */
+    public static int operands(int opcode) {
+        return OPERANDS[opcode];
+    }
+
+    /**
+     * A compiled function. The code and frame size are filled in after the
+     * chunk is created, so calls can refer to functions compiled later.
+     */
+    public static final class Chunk {
+
+        private final String name;
+        private final int arity;
+        int[] code = new int[0];
+        Object[] constants = new Object[0];
+        int registers = 0;
+
+        public Chunk(String name, int arity) {
+            this.name = name;
+            this.arity = arity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getArity() {
+            return arity;
+        }
+
+        public int getRegisters() {
+            return registers;
+        }
+
+        /**
+         * Returns the instructions of this chunk in a readable form, one
+         * per line, e.g. {@code 3: ADD 1 1 2 0}.
+         */
+        public List<String> disassemble() {
+            List<String> instructions = new ArrayList<>();
+            for (int pc = 0; pc < code.length; pc += 1 + OPERANDS[code[pc]]) {
+                StringBuilder builder = new StringBuilder().append(pc).append(": ").append(NAMES[code[pc]]);
+                for (int i = 1; i <= OPERANDS[code[pc]]; i++) {
+                    builder.append(' ').append(code[pc + i]);
+                }
+                instructions.add(builder.toString());
+            }
+            return instructions;
+        }
+
+        @Override
+        public String toString() {
+            return "Chunk{" +
+                    "name='" + name + '\'' +
+                    ", arity=" + arity +
+                    ", registers=" + registers +
+                    ", instructions=" + disassemble().size() +
+                    '}';
+        }
+
+    }
+
+}
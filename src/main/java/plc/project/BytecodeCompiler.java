@@ -0,0 +1,477 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles analyzed functions into {@link Bytecode.Chunk}s for the
+ * {@link VirtualMachine}. Local variables are assigned registers for the
+ * block they are declared in, and each expression is compiled into a target
+ * register using temporaries above the locals, which are reused as soon as
+ * the expression is done.
+ * <p>
+ * Globals and functions are resolved against the given scope while
+ * compiling, and calls to functions declared with {@link #declare} bind
+ * directly to their chunk. Anything else is looked up by name when executed,
+ * so undefined names only fail if the code is reached, as in the
+ * {@link Interpreter}.
+ */
+public final class BytecodeCompiler {
+
+    private final Scope scope;
+    private final Map<String, Bytecode.Chunk> chunks = new HashMap<>();
+
+    private int[] code;
+    private int size;
+    private List<Object> constants;
+    private Map<Object, Integer> pool;
+    private Locals locals;
+    private int next;
+    private int registers;
+
+    public BytecodeCompiler(Scope scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Creates the chunk for a function so calls compiled afterwards, including
+     * ones in functions compiled earlier in the source, can bind to it.
+     */
+    public Bytecode.Chunk declare(Ast.Function ast) {
+        Bytecode.Chunk chunk = new Bytecode.Chunk(ast.getName(), ast.getParameters().size());
+        chunks.put(ast.getName() + "/" + ast.getParameters().size(), chunk);
+        return chunk;
+    }
+
+    /**
+     * Compiles the body of a function into the chunk created by
+     * {@link #declare}, declaring it first if that hasn't been done.
+     */
+    public Bytecode.Chunk compile(Ast.Function ast) {
+        Bytecode.Chunk chunk = chunks.get(ast.getName() + "/" + ast.getParameters().size());
+        if (chunk == null) {
+            chunk = declare(ast);
+        }
+
+        begin();
+        for (String parameter : ast.getParameters()) {
+            define(parameter, next++);
+        }
+        registers = next;
+        statements(ast.getStatements());
+        int result = temporary();
+        emit(Bytecode.CONST, result, constant(Environment.NIL));
+        emit(Bytecode.RETURN, result);
+        return finish(chunk);
+    }
+
+    /**
+     * Compiles an expression outside of any function, such as the initial
+     * value of a global, into a chunk without parameters returning its value.
+     */
+    public Bytecode.Chunk compile(Ast.Expression ast) {
+        begin();
+        int result = temporary();
+        expression(ast, result);
+        emit(Bytecode.RETURN, result);
+        return finish(new Bytecode.Chunk("<expression>", 0));
+    }
+
+    private void begin() {
+        code = new int[64];
+        size = 0;
+        constants = new ArrayList<>();
+        pool = new HashMap<>();
+        locals = new Locals(null);
+        next = 0;
+        registers = 0;
+    }
+
+    private Bytecode.Chunk finish(Bytecode.Chunk chunk) {
+        chunk.code = Arrays.copyOf(code, size);
+        chunk.constants = constants.toArray();
+        chunk.registers = registers;
+        return chunk;
+    }
+
+    /**
+     * Compiles a list of statements in a new block scope, whose locals and
+     * temporaries are released afterwards.
+     */
+    private void block(List<Ast.Statement> statements) {
+        Locals saved = locals;
+        int savedNext = next;
+        locals = new Locals(locals);
+        try {
+            statements(statements);
+        } finally {
+            locals = saved;
+            next = savedNext;
+        }
+    }
+
+    private void statements(List<Ast.Statement> statements) {
+        for (Ast.Statement statement : statements) {
+            int saved = next;
+            statement(statement);
+            if (!(statement instanceof Ast.Statement.Declaration)) {
+                next = saved;
+            }
+        }
+    }
+
+    private void statement(Ast.Statement ast) {
+        if (ast instanceof Ast.Statement.Expression) {
+            expression(((Ast.Statement.Expression) ast).getExpression(), temporary());
+        } else if (ast instanceof Ast.Statement.Declaration) {
+            Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) ast;
+            if (locals.registers.containsKey(declaration.getName())) {
+                throw new RuntimeException("The variable " + declaration.getName() + " is already defined in this scope.");
+            }
+            // reserve the register, but only bind the name after compiling
+            // the value so it still refers to any outer variable
+            int register = temporary();
+            if (declaration.getValue().isPresent()) {
+                expression(declaration.getValue().get(), register);
+            } else {
+                emit(Bytecode.CONST, register, constant(Environment.NIL));
+            }
+            define(declaration.getName(), register);
+        } else if (ast instanceof Ast.Statement.Assignment) {
+            assignment((Ast.Statement.Assignment) ast);
+        } else if (ast instanceof Ast.Statement.If) {
+            Ast.Statement.If statement = (Ast.Statement.If) ast;
+            int condition = operand(statement.getCondition());
+            int otherwise = jump(Bytecode.JUMP_FALSE, condition);
+            block(statement.getThenStatements());
+            if (statement.getElseStatements().isEmpty()) {
+                patch(otherwise);
+            } else {
+                int end = jump(Bytecode.JUMP);
+                patch(otherwise);
+                block(statement.getElseStatements());
+                patch(end);
+            }
+        } else if (ast instanceof Ast.Statement.Switch) {
+            switchStatement((Ast.Statement.Switch) ast);
+        } else if (ast instanceof Ast.Statement.While) {
+            Ast.Statement.While statement = (Ast.Statement.While) ast;
+            int top = size;
+            int saved = next;
+            int condition = operand(statement.getCondition());
+            next = saved;
+            int end = jump(Bytecode.JUMP_FALSE, condition);
+            block(statement.getStatements());
+            emit(Bytecode.JUMP, top);
+            patch(end);
+        } else if (ast instanceof Ast.Statement.Return) {
+            emit(Bytecode.RETURN, operand(((Ast.Statement.Return) ast).getValue()));
+        } else {
+            throw new AssertionError("Unimplemented statement " + ast.getClass().getSimpleName() + ".");
+        }
+    }
+
+    private void assignment(Ast.Statement.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expression.Access)) {
+            emit(Bytecode.FAIL, constant("Receiver is not of type Ast.Expression.Access!"));
+            return;
+        }
+
+        Ast.Expression.Access receiver = (Ast.Expression.Access) ast.getReceiver();
+        Integer local = locals.lookup(receiver.getName());
+        Environment.Variable global = local == null ? global(receiver.getName()) : null;
+        if (global != null && !global.getMutable()) {
+            emit(Bytecode.FAIL, constant("Cannot modify immutable environment variable!"));
+            return;
+        }
+
+        if (receiver.getOffset().isPresent()) {
+            int list = variable(receiver.getName(), null);
+            int offset = operand(receiver.getOffset().get());
+            emit(Bytecode.SET_INDEX, list, offset, operand(ast.getValue()));
+        } else if (local != null) {
+            expression(ast.getValue(), local);
+        } else if (global != null) {
+            emit(Bytecode.SET_GLOBAL, constant(global), operand(ast.getValue()));
+        } else {
+            emit(Bytecode.SET_NAME, constant(receiver.getName()), operand(ast.getValue()));
+        }
+    }
+
+    /**
+     * Compiles a switch statement into a chain of comparisons, running the
+     * statements of the first case equal to the condition or otherwise those
+     * of the last case.
+     */
+    private void switchStatement(Ast.Statement.Switch ast) {
+        int condition = operand(ast.getCondition());
+        emit(Bytecode.COMPARABLE, condition);
+
+        List<Integer> ends = new ArrayList<>();
+        for (Ast.Statement.Case current : ast.getCases()) {
+            if (current.getValue().isPresent()) {
+                int saved = next;
+                int value = operand(current.getValue().get());
+                next = saved;
+                int skip = jump(Bytecode.JUMP_UNEQUAL, condition, value);
+                block(current.getStatements());
+                ends.add(jump(Bytecode.JUMP));
+                patch(skip);
+            }
+        }
+        block(ast.getCases().get(ast.getCases().size() - 1).getStatements());
+        ends.forEach(this::patch);
+    }
+
+    /**
+     * Compiles an expression so its value ends up in the target register.
+     * The target is only written by the final instruction, except for
+     * {@code &&} and {@code ||} which are compiled via a temporary, so the
+     * target may also be a local read by the expression.
+     */
+    private void expression(Ast.Expression ast, int target) {
+        int saved = next;
+        if (ast instanceof Ast.Expression.Literal) {
+            Object literal = ((Ast.Expression.Literal) ast).getLiteral();
+            emit(Bytecode.CONST, target, constant(literal == null ? Environment.NIL : Environment.create(literal)));
+        } else if (ast instanceof Ast.Expression.Group) {
+            expression(((Ast.Expression.Group) ast).getExpression(), target);
+        } else if (ast instanceof Ast.Expression.Binary) {
+            binary((Ast.Expression.Binary) ast, target);
+        } else if (ast instanceof Ast.Expression.Access) {
+            Ast.Expression.Access access = (Ast.Expression.Access) ast;
+            if (access.getOffset().isPresent()) {
+                int offset = operand(access.getOffset().get());
+                emit(Bytecode.GET_INDEX, target, variable(access.getName(), null), offset);
+            } else {
+                variable(access.getName(), target);
+            }
+        } else if (ast instanceof Ast.Expression.Function) {
+            call((Ast.Expression.Function) ast, target);
+        } else if (ast instanceof Ast.Expression.PlcList) {
+            List<Ast.Expression> values = ((Ast.Expression.PlcList) ast).getValues();
+            int first = arguments(values);
+            emit(Bytecode.LIST, target, first, values.size());
+        } else {
+            throw new AssertionError("Unimplemented expression " + ast.getClass().getSimpleName() + ".");
+        }
+        next = saved;
+    }
+
+    private void binary(Ast.Expression.Binary ast, int target) {
+        switch (ast.getOperator()) {
+            case "&&":
+            case "||": {
+                int result = temporary();
+                expression(ast.getLeft(), result);
+                int end = jump(ast.getOperator().equals("&&") ? Bytecode.JUMP_FALSE : Bytecode.JUMP_TRUE, result);
+                expression(ast.getRight(), result);
+                emit(Bytecode.BOOLEAN, result);
+                patch(end);
+                emit(Bytecode.MOVE, target, result);
+                return;
+            }
+            case "+":
+                arithmetic(Bytecode.ADD, ast, target);
+                return;
+            case "-":
+                arithmetic(Bytecode.SUB, ast, target);
+                return;
+            case "*":
+                arithmetic(Bytecode.MUL, ast, target);
+                return;
+        }
+
+        int left = operand(ast.getLeft());
+        int right = operand(ast.getRight());
+        switch (ast.getOperator()) {
+            case "/": emit(Bytecode.DIV, target, left, right); break;
+            case "^": emit(Bytecode.POW, target, left, right); break;
+            case "<": emit(Bytecode.LT, target, left, right); break;
+            case ">": emit(Bytecode.GT, target, left, right); break;
+            case "==": emit(Bytecode.EQ, target, left, right); break;
+            case "!=": emit(Bytecode.NE, target, left, right); break;
+            default: emit(Bytecode.CONST, target, constant(Environment.NIL));
+        }
+    }
+
+    private void arithmetic(int opcode, Ast.Expression.Binary ast, int target) {
+        int left = operand(ast.getLeft());
+        int right = operand(ast.getRight());
+        emit(opcode, target, left, right, ast.isBounded() ? 1 : 0);
+    }
+
+    private void call(Ast.Expression.Function ast, int target) {
+        int arity = ast.getArguments().size();
+        int first = arguments(ast.getArguments());
+        Object function = chunks.get(ast.getName() + "/" + arity);
+        if (function == null) {
+            try {
+                function = scope.lookupFunction(ast.getName(), arity);
+            } catch (RuntimeException e) {
+                emit(Bytecode.CALL_NAME, target, constant(ast.getName()), first, arity);
+                return;
+            }
+        }
+        emit(Bytecode.CALL, target, constant(function), first, arity);
+    }
+
+    /**
+     * Compiles values into consecutive temporaries, returning the first.
+     */
+    private int arguments(List<Ast.Expression> values) {
+        int first = next;
+        for (int i = 0; i < values.size(); i++) {
+            temporary();
+        }
+        for (int i = 0; i < values.size(); i++) {
+            expression(values.get(i), first + i);
+        }
+        return first;
+    }
+
+    /**
+     * Returns a register holding the value of the expression, which is the
+     * variable's own register for locals and a new temporary otherwise.
+     */
+    private int operand(Ast.Expression ast) {
+        if (ast instanceof Ast.Expression.Group) {
+            return operand(((Ast.Expression.Group) ast).getExpression());
+        } else if (ast instanceof Ast.Expression.Access && !((Ast.Expression.Access) ast).getOffset().isPresent()) {
+            Integer local = locals.lookup(((Ast.Expression.Access) ast).getName());
+            if (local != null) {
+                return local;
+            }
+        }
+
+        int register = temporary();
+        expression(ast, register);
+        return register;
+    }
+
+    /**
+     * Loads a variable into the target register, or if the target is null
+     * returns a register holding it.
+     */
+    private int variable(String name, Integer target) {
+        Integer local = locals.lookup(name);
+        if (local != null) {
+            if (target != null && target.intValue() != local) {
+                emit(Bytecode.MOVE, target, local);
+            }
+            return target != null ? target : local;
+        }
+
+        int register = target != null ? target : temporary();
+        Environment.Variable global = global(name);
+        if (global != null) {
+            emit(Bytecode.GET_GLOBAL, register, constant(global));
+        } else {
+            emit(Bytecode.GET_NAME, register, constant(name));
+        }
+        return register;
+    }
+
+    private Environment.Variable global(String name) {
+        try {
+            return scope.lookupVariable(name);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void define(String name, int register) {
+        locals.registers.put(name, register);
+    }
+
+    private int temporary() {
+        registers = Math.max(registers, next + 1);
+        return next++;
+    }
+
+    /**
+     * Returns the index of a value in the constant pool, adding it if needed.
+     * Values are pooled by identity, except names and messages.
+     */
+    private int constant(Object value) {
+        Object key = value instanceof String ? value : new Identity(value);
+        Integer index = pool.get(key);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            pool.put(key, index);
+        }
+        return index;
+    }
+
+    private void emit(int... instruction) {
+        if (size + instruction.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + instruction.length));
+        }
+        System.arraycopy(instruction, 0, code, size, instruction.length);
+        size += instruction.length;
+    }
+
+    /**
+     * Emits a jump with the given operands and a target to be patched,
+     * returning the position of the target operand.
+     */
+    private int jump(int opcode, int... operands) {
+        int[] instruction = Arrays.copyOf(new int[] {opcode}, operands.length + 2);
+        System.arraycopy(operands, 0, instruction, 1, operands.length);
+        emit(instruction);
+        return size - 1;
+    }
+
+    private void patch(int jump) {
+        code[jump] = size;
+    }
+
+    /**
+     * Registers of the variables declared in a block.
+     */
+    private static final class Locals {
+
+        private final Locals parent;
+        private final Map<String, Integer> registers = new HashMap<>();
+
+        private Locals(Locals parent) {
+            this.parent = parent;
+        }
+
+        private Integer lookup(String name) {
+            if (registers.containsKey(name)) {
+                return registers.get(name);
+            }
+            return parent != null ? parent.lookup(name) : null;
+        }
+
+    }
+
+    /**
+     * Wraps a constant so it's pooled by identity rather than equality.
+     */
+    private static final class Identity {
+
+        private final Object value;
+
+        private Identity(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Identity && ((Identity) obj).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+
+    }
+
+}
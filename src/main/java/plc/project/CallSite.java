@@ -0,0 +1,43 @@
+package plc.project;
+
+/**
+ * A monomorphic inline cache for the function called by an
+ * {@link Ast.Expression.Function}, remembering the function and the scope it
+ * was found in. Later lookups reuse it if that scope is still reachable
+ * without passing a scope that defines functions, which covers every call
+ * made while the functions are unchanged and misses once a scope on the way
+ * could shadow the cached function.
+ */
+public final class CallSite {
+
+    private Entry entry = null;
+
+    /**
+     * Returns the function {@code name/arity} visible from the given scope,
+     * like {@link Scope#lookupFunction(String, int)}.
+     */
+    public Environment.Function lookup(Scope scope, String name, int arity) {
+        Entry entry = this.entry;
+        if (entry != null && scope.reaches(entry.scope)) {
+            return entry.function;
+        }
+
+        Scope holder = scope.lookupFunctionScope(name, arity);
+        Environment.Function function = holder.lookupFunction(name, arity);
+        this.entry = new Entry(holder, function);
+        return function;
+    }
+
+    private static final class Entry {
+
+        private final Scope scope;
+        private final Environment.Function function;
+
+        private Entry(Scope scope, Environment.Function function) {
+            this.scope = scope;
+            this.function = function;
+        }
+
+    }
+
+}
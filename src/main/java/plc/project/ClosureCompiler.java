@@ -0,0 +1,533 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Execution engine that compiles an analyzed AST once into a tree of closures
+ * and then runs {@code main/0} through it. Compiling resolves everything the
+ * {@link Interpreter} looks up on each evaluation: operators are bound to
+ * their implementation in {@link Operators}, local variables to slots in a
+ * per-call frame, and globals and functions to their environment entries.
+ * <p>
+ * Programs produce the same results, output and errors as in the interpreter.
+ * Names that cannot be resolved while compiling are looked up when evaluated
+ * instead, so they still only fail if the code is actually reached. Tail
+ * calls of a function to itself restart its body in the same frame, so they
+ * don't grow the stack.
+ */
+public final class ClosureCompiler {
+
+    private final Scope scope;
+    private Ast.Function function = null;
+    private Locals locals = null;
+    private int slots = 0;
+    private int frameSize = 0;
+    private boolean doubles = false;
+
+    public ClosureCompiler(Scope parent) {
+        scope = new Scope(Interpreter.builtins(parent));
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Represents DECIMAL literals as primitive doubles, like
+     * {@link Interpreter#setDoubleDecimals(boolean)}, for functions compiled
+     * from then on.
+     */
+    public void setDoubleDecimals(boolean doubles) {
+        this.doubles = doubles;
+    }
+
+    /**
+     * Defines the globals and functions of the source and invokes
+     * {@code main/0}, like {@link Interpreter#visit(Ast.Source)}.
+     */
+    public Environment.PlcObject run(Ast.Source ast) {
+        for (Ast.Global global : ast.getGlobals()) {
+            Environment.PlcObject value = Environment.NIL;
+            if (global.getValue().isPresent()) {
+                value = expression(global.getValue().get()).evaluate(new Frame(0));
+            } else if (!global.getMutable()) {
+                throw new RuntimeException("Immutable types must be initialized!");
+            }
+            scope.defineVariable(global.getName(), global.getMutable(), value);
+        }
+
+        // define every function before compiling any body so calls can bind
+        // to functions declared later in the source
+        Map<Ast.Function, CompiledFunction> functions = new HashMap<>();
+        for (Ast.Function function : ast.getFunctions()) {
+            CompiledFunction compiled = new CompiledFunction(function.getParameters().size());
+            Environment.Function defined = scope.defineFunction(function.getName(), function.getParameters().size(), compiled::invoke);
+            try {
+                defined.setEffect(function.getFunction().getEffect());
+            } catch (IllegalStateException e) {
+                // not analyzed, so keep assuming the function has side effects
+            }
+            functions.put(function, compiled);
+        }
+        for (Ast.Function function : ast.getFunctions()) {
+            compile(function, functions.get(function));
+        }
+
+        return scope.lookupFunction("main", 0).invoke(Collections.emptyList());
+    }
+
+    /**
+     * Compiles a single function against the globals and functions already
+     * defined in the scope, returning an implementation for its
+     * {@link Environment.Function}.
+     */
+    public java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> compile(Ast.Function ast) {
+        CompiledFunction function = new CompiledFunction(ast.getParameters().size());
+        compile(ast, function);
+        return function::invoke;
+    }
+
+    private void compile(Ast.Function ast, CompiledFunction compiled) {
+        function = ast;
+        locals = new Locals(null);
+        slots = 0;
+        frameSize = 0;
+        try {
+            for (String parameter : ast.getParameters()) {
+                declare(parameter);
+            }
+            compiled.body = statements(ast.getStatements());
+            compiled.frameSize = frameSize;
+        } finally {
+            function = null;
+            locals = null;
+        }
+    }
+
+    /**
+     * Compiles a list of statements in a new block scope.
+     */
+    private Statement block(List<Ast.Statement> statements) {
+        Locals saved = locals;
+        int savedSlots = slots;
+        locals = new Locals(locals);
+        try {
+            return statements(statements);
+        } finally {
+            locals = saved;
+            slots = savedSlots;
+        }
+    }
+
+    private Statement statements(List<Ast.Statement> statements) {
+        Statement[] compiled = new Statement[statements.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = statement(statements.get(i));
+        }
+
+        if (compiled.length == 1) {
+            return compiled[0];
+        }
+        return frame -> {
+            for (Statement statement : compiled) {
+                if (statement.execute(frame)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private Statement statement(Ast.Statement ast) {
+        if (ast instanceof Ast.Statement.Expression) {
+            Expression expression = expression(((Ast.Statement.Expression) ast).getExpression());
+            return frame -> {
+                expression.evaluate(frame);
+                return false;
+            };
+        } else if (ast instanceof Ast.Statement.Declaration) {
+            Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) ast;
+            Expression value = declaration.getValue().isPresent() ? expression(declaration.getValue().get()) : frame -> Environment.NIL;
+            int slot = declare(declaration.getName());
+            return frame -> {
+                frame.slots[slot] = value.evaluate(frame);
+                return false;
+            };
+        } else if (ast instanceof Ast.Statement.Assignment) {
+            return assignment((Ast.Statement.Assignment) ast);
+        } else if (ast instanceof Ast.Statement.If) {
+            Ast.Statement.If statement = (Ast.Statement.If) ast;
+            Expression condition = expression(statement.getCondition());
+            Statement thenStatements = block(statement.getThenStatements());
+            Statement elseStatements = block(statement.getElseStatements());
+            return frame -> Operators.requireType(Boolean.class, condition.evaluate(frame))
+                    ? thenStatements.execute(frame)
+                    : elseStatements.execute(frame);
+        } else if (ast instanceof Ast.Statement.Switch) {
+            return switchStatement((Ast.Statement.Switch) ast);
+        } else if (ast instanceof Ast.Statement.While) {
+            Ast.Statement.While statement = (Ast.Statement.While) ast;
+            Expression condition = expression(statement.getCondition());
+            Statement body = block(statement.getStatements());
+            return frame -> {
+                while (Operators.requireType(Boolean.class, condition.evaluate(frame))) {
+                    if (body.execute(frame)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        } else if (ast instanceof Ast.Statement.Return) {
+            if (isSelfTailCall((Ast.Statement.Return) ast)) {
+                return tailCall((Ast.Expression.Function) ((Ast.Statement.Return) ast).getValue());
+            }
+            Expression value = expression(((Ast.Statement.Return) ast).getValue());
+            return frame -> {
+                frame.result = value.evaluate(frame);
+                return true;
+            };
+        } else {
+            throw new AssertionError("Unimplemented statement " + ast.getClass().getSimpleName() + ".");
+        }
+    }
+
+    private Statement assignment(Ast.Statement.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expression.Access)) {
+            return frame -> {
+                throw new RuntimeException("Receiver is not of type Ast.Expression.Access!");
+            };
+        }
+
+        Ast.Expression.Access receiver = (Ast.Expression.Access) ast.getReceiver();
+        Expression value = expression(ast.getValue());
+        Expression variable = variable(receiver.getName());
+        Environment.Variable global = locals.lookup(receiver.getName()) == null ? global(receiver.getName()) : null;
+        if (global != null && !global.getMutable()) {
+            return frame -> {
+                throw new RuntimeException("Cannot modify immutable environment variable!");
+            };
+        }
+
+        if (receiver.getOffset().isPresent()) {
+            Expression offset = expression(receiver.getOffset().get());
+            return frame -> {
+                Environment.PlcObject list = variable.evaluate(frame);
+                Operators.set(list, offset.evaluate(frame), value.evaluate(frame));
+                return false;
+            };
+        }
+
+        Integer slot = locals.lookup(receiver.getName());
+        if (slot != null) {
+            return frame -> {
+                frame.slots[slot] = value.evaluate(frame);
+                return false;
+            };
+        } else if (global != null) {
+            return frame -> {
+                global.setValue(value.evaluate(frame));
+                return false;
+            };
+        }
+        String name = receiver.getName();
+        return frame -> {
+            Environment.Variable dynamic = scope.lookupVariable(name);
+            if (!dynamic.getMutable())
+                throw new RuntimeException("Cannot modify immutable environment variable!");
+
+            dynamic.setValue(value.evaluate(frame));
+            return false;
+        };
+    }
+
+    private boolean isSelfTailCall(Ast.Statement.Return ast) {
+        if (!ast.isTailCall() || function == null) {
+            return false;
+        }
+        Ast.Expression.Function call = (Ast.Expression.Function) ast.getValue();
+        return call.getName().equals(function.getName()) && call.getArguments().size() == function.getParameters().size();
+    }
+
+    /**
+     * Compiles a self tail call, which stores the arguments in the parameter
+     * slots and restarts the body in the same frame instead of growing the
+     * stack, like the tail calls of the interpreter.
+     */
+    private Statement tailCall(Ast.Expression.Function ast) {
+        Expression[] arguments = new Expression[ast.getArguments().size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = expression(ast.getArguments().get(i));
+        }
+        return frame -> {
+            Environment.PlcObject[] values = new Environment.PlcObject[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                values[i] = arguments[i].evaluate(frame);
+            }
+            System.arraycopy(values, 0, frame.slots, 0, values.length);
+            frame.tailCall = true;
+            return true;
+        };
+    }
+
+    /**
+     * Compiles a switch statement, which runs the statements of the first
+     * case equal to the condition or otherwise those of the last case.
+     */
+    private Statement switchStatement(Ast.Statement.Switch ast) {
+        Expression condition = expression(ast.getCondition());
+        List<Ast.Statement.Case> cases = ast.getCases();
+        List<Expression> values = new ArrayList<>();
+        List<Statement> bodies = new ArrayList<>();
+        for (Ast.Statement.Case current : cases) {
+            if (current.getValue().isPresent()) {
+                values.add(expression(current.getValue().get()));
+                bodies.add(block(current.getStatements()));
+            }
+        }
+        Statement fallback = block(cases.get(cases.size() - 1).getStatements());
+
+        Expression[] caseValues = values.toArray(new Expression[0]);
+        Statement[] caseBodies = bodies.toArray(new Statement[0]);
+        // as in the Interpreter, DECIMAL cases don't use the table with doubles
+        if (ast.getJumpTable().isPresent() && !(doubles && ast.getJumpTable().get().keySet().stream().anyMatch(key -> key instanceof BigDecimal))) {
+            Map<Object, Integer> table = ast.getJumpTable().get();
+            return frame -> {
+                Integer index = table.get(Operators.requireType(Comparable.class, condition.evaluate(frame)));
+                return index != null ? caseBodies[index].execute(frame) : fallback.execute(frame);
+            };
+        }
+        return frame -> {
+            Comparable<?> value = Operators.requireType(Comparable.class, condition.evaluate(frame));
+            for (int i = 0; i < caseValues.length; i++) {
+                if (value.equals(Operators.requireType(Comparable.class, caseValues[i].evaluate(frame)))) {
+                    return caseBodies[i].execute(frame);
+                }
+            }
+            return fallback.execute(frame);
+        };
+    }
+
+    private Expression expression(Ast.Expression ast) {
+        if (ast instanceof Ast.Expression.Literal) {
+            Object literal = ((Ast.Expression.Literal) ast).getLiteral();
+            Environment.PlcObject value = literal == null ? Environment.NIL
+                    : doubles && literal instanceof BigDecimal ? Environment.createDecimal(((BigDecimal) literal).doubleValue())
+                    : Environment.create(literal);
+            return frame -> value;
+        } else if (ast instanceof Ast.Expression.Group) {
+            return expression(((Ast.Expression.Group) ast).getExpression());
+        } else if (ast instanceof Ast.Expression.Binary) {
+            return binary((Ast.Expression.Binary) ast);
+        } else if (ast instanceof Ast.Expression.Access) {
+            Ast.Expression.Access access = (Ast.Expression.Access) ast;
+            Expression variable = variable(access.getName());
+            if (!access.getOffset().isPresent()) {
+                return variable;
+            }
+            Expression offset = expression(access.getOffset().get());
+            return frame -> {
+                Environment.PlcObject index = offset.evaluate(frame);
+                return Operators.get(variable.evaluate(frame), index);
+            };
+        } else if (ast instanceof Ast.Expression.Function) {
+            return call((Ast.Expression.Function) ast);
+        } else if (ast instanceof Ast.Expression.PlcList) {
+            List<Expression> values = new ArrayList<>();
+            for (Ast.Expression value : ((Ast.Expression.PlcList) ast).getValues()) {
+                values.add(expression(value));
+            }
+            Environment.Type type = Environment.Type.ANY;
+            try {
+                type = ((Ast.Expression.PlcList) ast).getType();
+            } catch (IllegalStateException e) {
+                // not analyzed, so store the elements boxed
+            }
+            Environment.Type element = type;
+            return frame -> {
+                List<Environment.PlcObject> list = new ArrayList<>(values.size());
+                for (Expression value : values) {
+                    list.add(value.evaluate(frame));
+                }
+                return Environment.create(PrimitiveList.of(element, list));
+            };
+        } else {
+            throw new AssertionError("Unimplemented expression " + ast.getClass().getSimpleName() + ".");
+        }
+    }
+
+    private Expression binary(Ast.Expression.Binary ast) {
+        Expression left = expression(ast.getLeft());
+        Expression right = expression(ast.getRight());
+        boolean bounded = ast.isBounded();
+        switch (ast.getOperator()) {
+            case "&&":
+                return frame -> Environment.create(Operators.requireType(Boolean.class, left.evaluate(frame)) && Operators.requireType(Boolean.class, right.evaluate(frame)));
+            case "||":
+                return frame -> Environment.create(Operators.requireType(Boolean.class, left.evaluate(frame)) || Operators.requireType(Boolean.class, right.evaluate(frame)));
+            case ">":
+                return frame -> Environment.create(Operators.compare(left.evaluate(frame), right.evaluate(frame)) > 0);
+            case "<":
+                return frame -> Environment.create(Operators.compare(left.evaluate(frame), right.evaluate(frame)) < 0);
+            case "==":
+                return frame -> Environment.create(Operators.compare(left.evaluate(frame), right.evaluate(frame)) == 0);
+            case "!=":
+                return frame -> Environment.create(Operators.compare(left.evaluate(frame), right.evaluate(frame)) != 0);
+            case "+":
+                return frame -> Operators.add(left.evaluate(frame), right.evaluate(frame), bounded);
+            case "-":
+                return frame -> Operators.subtract(left.evaluate(frame), right.evaluate(frame), bounded);
+            case "*":
+                return frame -> Operators.multiply(left.evaluate(frame), right.evaluate(frame), bounded);
+            case "/":
+                return frame -> Operators.divide(left.evaluate(frame), right.evaluate(frame));
+            case "^":
+                return frame -> Operators.power(left.evaluate(frame), right.evaluate(frame));
+            default:
+                return frame -> {
+                    left.evaluate(frame);
+                    right.evaluate(frame);
+                    return Environment.NIL;
+                };
+        }
+    }
+
+    private Expression call(Ast.Expression.Function ast) {
+        Expression[] arguments = new Expression[ast.getArguments().size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = expression(ast.getArguments().get(i));
+        }
+
+        Environment.Function function;
+        try {
+            function = scope.lookupFunction(ast.getName(), arguments.length);
+        } catch (RuntimeException e) {
+            function = null;
+        }
+
+        Environment.Function target = function;
+        String name = ast.getName();
+        return frame -> {
+            List<Environment.PlcObject> values = new ArrayList<>(arguments.length);
+            for (Expression argument : arguments) {
+                values.add(argument.evaluate(frame));
+            }
+            return (target != null ? target : scope.lookupFunction(name, arguments.length)).invoke(values);
+        };
+    }
+
+    /**
+     * Compiles a read of a variable, resolving it to a frame slot or global.
+     */
+    private Expression variable(String name) {
+        Integer slot = locals == null ? null : locals.lookup(name);
+        if (slot != null) {
+            return frame -> frame.slots[slot];
+        }
+
+        Environment.Variable global = global(name);
+        if (global != null) {
+            return frame -> global.getValue();
+        }
+        return frame -> scope.lookupVariable(name).getValue();
+    }
+
+    private Environment.Variable global(String name) {
+        try {
+            return scope.lookupVariable(name);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private int declare(String name) {
+        if (locals.slots.containsKey(name)) {
+            throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+        }
+        locals.slots.put(name, slots);
+        frameSize = Math.max(frameSize, slots + 1);
+        return slots++;
+    }
+
+    @FunctionalInterface
+    private interface Expression {
+
+        Environment.PlcObject evaluate(Frame frame);
+
+    }
+
+    /**
+     * A compiled statement, which returns whether it executed a return.
+     */
+    @FunctionalInterface
+    private interface Statement {
+
+        boolean execute(Frame frame);
+
+    }
+
+    private static final class Frame {
+
+        private final Environment.PlcObject[] slots;
+        private Environment.PlcObject result = Environment.NIL;
+        private boolean tailCall = false;
+
+        private Frame(int size) {
+            slots = new Environment.PlcObject[size];
+        }
+
+    }
+
+    /**
+     * Slots of the variables declared in a block, for resolving names while
+     * compiling a function.
+     */
+    private static final class Locals {
+
+        private final Locals parent;
+        private final Map<String, Integer> slots = new HashMap<>();
+
+        private Locals(Locals parent) {
+            this.parent = parent;
+        }
+
+        private Integer lookup(String name) {
+            if (slots.containsKey(name)) {
+                return slots.get(name);
+            }
+            return parent != null ? parent.lookup(name) : null;
+        }
+
+    }
+
+    private static final class CompiledFunction {
+
+        private final int arity;
+        private Statement body = frame -> false;
+        private int frameSize = 0;
+
+        private CompiledFunction(int arity) {
+            this.arity = arity;
+        }
+
+        private Environment.PlcObject invoke(List<Environment.PlcObject> arguments) {
+            Frame frame = new Frame(frameSize);
+            for (int i = 0; i < arity; i++) {
+                frame.slots[i] = arguments.get(i);
+            }
+            while (body.execute(frame)) {
+                if (!frame.tailCall) {
+                    return frame.result;
+                }
+                frame.tailCall = false;
+            }
+            return Environment.NIL;
+        }
+
+    }
+
+}
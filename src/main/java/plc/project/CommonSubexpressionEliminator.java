@@ -0,0 +1,301 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Optimization pass that computes repeated expressions once. Blocks are split
+ * into runs of straight-line statements (expressions, declarations,
+ * assignments and returns), and binary expressions which appear more than
+ * once in a run, without an assignment to any variable they read in between,
+ * are computed into a temporary declared before the first statement using
+ * them. Nested blocks are handled on their own.
+ * <p>
+ * Expressions are matched structurally, including the variables resolved by
+ * the {@link Analyzer}, so unanalyzed trees are left alone. As with the
+ * {@link LoopInvariantHoister}, only expressions which can't fail are shared,
+ * and occurrences in the right operand of {@code &&} or {@code ||} aren't
+ * counted, since the temporary is computed ahead of any short-circuiting in
+ * its statement. A statement calling a function which may change globals ends
+ * the run for expressions reading them.
+ */
+public final class CommonSubexpressionEliminator extends Rewriter {
+
+    private Set<Environment.Variable> globals = null;
+    private Set<Environment.Variable> uninitialized = null;
+    private int eliminated = 0;
+
+    /**
+     * Returns the number of evaluations replaced by reading a temporary,
+     * not counting the one computing it.
+     */
+    public int getEliminated() {
+        return eliminated;
+    }
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        globals = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Ast.Global global : ast.getGlobals()) {
+            Environment.Variable variable = annotation(global::getVariable);
+            if (variable != null) {
+                globals.add(variable);
+            }
+        }
+        uninitialized = uninitialized(ast);
+
+        return super.visit(ast);
+    }
+
+    @Override
+    protected List<Ast.Statement> block(List<Ast.Statement> statements) {
+        List<Ast.Statement> rewritten = super.block(statements);
+        List<Ast.Statement> result = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < rewritten.size(); i++) {
+            Ast.Statement statement = rewritten.get(i);
+            if (!(statement instanceof Ast.Statement.Expression || statement instanceof Ast.Statement.Declaration
+                    || statement instanceof Ast.Statement.Assignment || statement instanceof Ast.Statement.Return)) {
+                result.addAll(eliminate(rewritten.subList(start, i)));
+                result.add(statement);
+                start = i + 1;
+            }
+        }
+
+        result.addAll(eliminate(rewritten.subList(start, rewritten.size())));
+        return result;
+    }
+
+    /**
+     * Rewrites a run of straight-line statements, first finding the
+     * candidates occurring at least twice and then substituting them. A
+     * candidate whose occurrences all end up inside a larger substituted one
+     * is dropped and the run substituted again, and once the candidates are
+     * settled the run is substituted with fresh names for the temporaries.
+     */
+    private List<Ast.Statement> eliminate(List<Ast.Statement> run) {
+        List<Candidate> candidates = new ArrayList<>();
+        List<Candidate> live = new ArrayList<>();
+        for (int i = 0; i < run.size(); i++) {
+            int index = i;
+            Ast.Statement statement = run.get(i);
+            boolean effects = effectful(statement);
+            if (effects) {
+                live.removeIf(Candidate::readsGlobals);
+            }
+
+            Set<Ast> guarded = guarded(statement);
+            walk(statement, node -> {
+                if (node instanceof Ast.Expression && !guarded.contains(node) && shared((Ast.Expression) node) && safe((Ast.Expression) node)) {
+                    Candidate candidate = find(live, (Ast.Expression) node);
+                    if (candidate == null) {
+                        candidate = new Candidate((Ast.Expression) node, index);
+                        if (effects && candidate.readsGlobals()) {
+                            return;
+                        }
+                        live.add(candidate);
+                        candidates.add(candidate);
+                    }
+                    candidate.count++;
+                    candidate.last = index;
+                }
+            });
+
+            if (statement instanceof Ast.Statement.Declaration) {
+                String name = ((Ast.Statement.Declaration) statement).getName();
+                live.removeIf(candidate -> candidate.reads(variable -> variable.getName().equals(name)));
+            } else if (statement instanceof Ast.Statement.Assignment && ((Ast.Statement.Assignment) statement).getReceiver() instanceof Ast.Expression.Access) {
+                String name = ((Ast.Expression.Access) ((Ast.Statement.Assignment) statement).getReceiver()).getName();
+                live.removeIf(candidate -> candidate.reads(variable -> variable.getName().equals(name)));
+            }
+            if (effects) {
+                live.removeIf(Candidate::readsGlobals);
+            }
+        }
+
+        List<Candidate> chosen = new ArrayList<>(candidates);
+        chosen.removeIf(candidate -> candidate.count < 2);
+        substitute(run, chosen, false);
+        while (!chosen.stream().allMatch(candidate -> candidate.uses >= 2)) {
+            chosen.removeIf(candidate -> candidate.uses < 2);
+            substitute(run, chosen, false);
+        }
+
+        for (Candidate candidate : chosen) {
+            eliminated += candidate.uses - 1;
+        }
+        return chosen.isEmpty() ? run : substitute(run, chosen, true);
+    }
+
+    private List<Ast.Statement> substitute(List<Ast.Statement> run, List<Candidate> chosen, boolean named) {
+        List<Ast.Statement> result = new ArrayList<>();
+        chosen.forEach(candidate -> candidate.uses = 0);
+        for (int i = 0; i < run.size(); i++) {
+            int index = i;
+            List<Candidate> first = new ArrayList<>();
+            chosen.stream().filter(candidate -> candidate.first == index).forEach(first::add);
+            // smaller expressions first, since larger ones may use their temporaries
+            first.sort(Comparator.comparingInt(candidate -> size(candidate.expression)));
+            for (Candidate candidate : first) {
+                String name = named ? fresh("$cse") : "$cse";
+                candidate.variable = new Environment.Variable(name, name, annotation(candidate.expression::getType), true, Environment.NIL);
+                Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(name, Optional.empty(),
+                        Optional.of(new Substituter(chosen, index, candidate).expression(candidate.expression)));
+                declaration.setVariable(candidate.variable);
+                result.add(declaration);
+            }
+
+            result.add((Ast.Statement) new Substituter(chosen, index, null).visit(run.get(i)));
+        }
+
+        return result;
+    }
+
+    private static Candidate find(List<Candidate> live, Ast.Expression ast) {
+        for (Candidate candidate : live) {
+            if (candidate.expression.equals(ast)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether sharing the expression saves any work, meaning it
+     * contains an operator rather than being a single literal or variable.
+     */
+    private static boolean shared(Ast.Expression ast) {
+        if (ast instanceof Ast.Expression.Group) {
+            return shared(((Ast.Expression.Group) ast).getExpression());
+        }
+        return ast instanceof Ast.Expression.Binary;
+    }
+
+    /**
+     * Returns the nodes of the statement in the right operand of an
+     * {@code &&} or {@code ||}, which may not be evaluated.
+     */
+    private static Set<Ast> guarded(Ast.Statement statement) {
+        Set<Ast> guarded = Collections.newSetFromMap(new IdentityHashMap<>());
+        walk(statement, node -> {
+            if (node instanceof Ast.Expression.Binary && (((Ast.Expression.Binary) node).getOperator().equals("&&") || ((Ast.Expression.Binary) node).getOperator().equals("||"))) {
+                walk(((Ast.Expression.Binary) node).getRight(), guarded::add);
+            }
+        });
+        return guarded;
+    }
+
+    private boolean safe(Ast.Expression ast) {
+        if (ast instanceof Ast.Expression.Literal) {
+            return true;
+        } else if (ast instanceof Ast.Expression.Group) {
+            return safe(((Ast.Expression.Group) ast).getExpression());
+        } else if (ast instanceof Ast.Expression.Binary) {
+            Ast.Expression.Binary binary = (Ast.Expression.Binary) ast;
+            return annotation(binary::getType) != null
+                    && !binary.getOperator().equals("/") && !binary.getOperator().equals("^")
+                    && safe(binary.getLeft()) && safe(binary.getRight());
+        } else if (ast instanceof Ast.Expression.Access) {
+            Environment.Variable variable = annotation(((Ast.Expression.Access) ast)::getVariable);
+            return !((Ast.Expression.Access) ast).getOffset().isPresent() && variable != null
+                    && uninitialized != null && !uninitialized.contains(variable);
+        }
+        return false;
+    }
+
+    private static boolean effectful(Ast.Statement statement) {
+        boolean[] effects = {false};
+        walk(statement, node -> {
+            if (node instanceof Ast.Expression.Function) {
+                Environment.Function function = annotation(((Ast.Expression.Function) node)::getFunction);
+                effects[0] |= function == null || function.getEffect() == Environment.Effect.EFFECTFUL;
+            }
+        });
+        return effects[0];
+    }
+
+    /**
+     * An expression occurring in a run, from its first occurrence until the
+     * last one before a variable it reads is changed.
+     */
+    private final class Candidate {
+
+        private final Ast.Expression expression;
+        private final List<Environment.Variable> variables = new ArrayList<>();
+        private final int first;
+        private int last;
+        private int count = 0;
+        private int uses = 0;
+        private Environment.Variable variable = null;
+
+        private Candidate(Ast.Expression expression, int first) {
+            this.expression = expression;
+            this.first = first;
+            this.last = first;
+            walk(expression, node -> {
+                if (node instanceof Ast.Expression.Access) {
+                    variables.add(((Ast.Expression.Access) node).getVariable());
+                }
+            });
+        }
+
+        private boolean reads(Predicate<Environment.Variable> predicate) {
+            return variables.stream().anyMatch(predicate);
+        }
+
+        private boolean readsGlobals() {
+            return reads(variable -> globals == null || globals.contains(variable));
+        }
+
+    }
+
+    /**
+     * Replaces the chosen expressions available at one statement of the run
+     * with their temporaries, except the one being declared.
+     */
+    private static final class Substituter extends Rewriter {
+
+        private final List<Candidate> chosen;
+        private final int index;
+        private final Candidate declared;
+
+        private Substituter(List<Candidate> chosen, int index, Candidate declared) {
+            this.chosen = chosen;
+            this.index = index;
+            this.declared = declared;
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Group ast) {
+            Ast.Expression.Access access = temporary(ast);
+            return access != null ? access : super.visit(ast);
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Binary ast) {
+            Ast.Expression.Access access = temporary(ast);
+            return access != null ? access : super.visit(ast);
+        }
+
+        private Ast.Expression.Access temporary(Ast.Expression ast) {
+            for (Candidate candidate : chosen) {
+                if (candidate != declared && candidate.first <= index && index <= candidate.last && candidate.expression.equals(ast)) {
+                    candidate.uses++;
+                    Ast.Expression.Access access = new Ast.Expression.Access(Optional.empty(), candidate.variable.getName());
+                    access.setVariable(candidate.variable);
+                    access.setBounded(ast.isBounded());
+                    return access;
+                }
+            }
+            return null;
+        }
+
+    }
+
+}
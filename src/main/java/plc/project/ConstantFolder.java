@@ -0,0 +1,117 @@
+package plc.project;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optimization pass that folds binary and group expressions whose operands
+ * are literals, and propagates the values of {@code VAL} globals and
+ * {@code LET} declarations that are initialized with a literal and never
+ * assigned afterwards.
+ * <p>
+ * Propagation relies on the variables resolved by the {@link Analyzer}, so
+ * unanalyzed trees are only folded. Folding evaluates the expression with the
+ * {@link Interpreter}, so folded values are exactly what would have been
+ * computed at runtime; expressions that fail to evaluate (such as a division
+ * by zero) are left in place to fail at runtime instead.
+ */
+public final class ConstantFolder extends Rewriter {
+
+    private final Interpreter interpreter = new Interpreter(new Scope(null));
+    private final Map<Environment.Variable, Ast.Expression.Literal> constants = new IdentityHashMap<>();
+    private final Set<Environment.Variable> assigned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        walk(ast, node -> {
+            if (node instanceof Ast.Statement.Assignment && ((Ast.Statement.Assignment) node).getReceiver() instanceof Ast.Expression.Access) {
+                Environment.Variable variable = annotation(((Ast.Expression.Access) ((Ast.Statement.Assignment) node).getReceiver())::getVariable);
+                if (variable != null) {
+                    assigned.add(variable);
+                }
+            }
+        });
+
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Global ast) {
+        Ast.Global global = (Ast.Global) super.visit(ast);
+        if (!global.getMutable() && global.getValue().isPresent()) {
+            propagate(annotation(global::getVariable), global.getValue().get());
+        }
+
+        return global;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Declaration ast) {
+        Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) super.visit(ast);
+        if (declaration.getValue().isPresent()) {
+            propagate(annotation(declaration::getVariable), declaration.getValue().get());
+        }
+
+        return declaration;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Group ast) {
+        Ast.Expression expression = expression(ast.getExpression());
+        if (expression instanceof Ast.Expression.Literal) {
+            removed++;
+            return expression;
+        }
+
+        Ast.Expression.Group group = new Ast.Expression.Group(expression);
+        group.setType(annotation(ast::getType));
+        group.setBounded(ast.isBounded());
+        return group;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Binary ast) {
+        Ast.Expression.Binary binary = (Ast.Expression.Binary) super.visit(ast);
+        if (binary.getLeft() instanceof Ast.Expression.Literal && binary.getRight() instanceof Ast.Expression.Literal) {
+            Environment.PlcObject value;
+            try {
+                value = interpreter.visit(binary);
+            } catch (RuntimeException e) {
+                return binary;
+            }
+
+            if (value == Environment.NIL) {
+                return binary;
+            }
+
+            Ast.Expression.Literal literal = new Ast.Expression.Literal(value.getValue());
+            literal.setType(annotation(binary::getType));
+            literal.setBounded(binary.isBounded());
+            removed += 2;
+            return literal;
+        }
+
+        return binary;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Access ast) {
+        if (!ast.getOffset().isPresent()) {
+            Environment.Variable variable = annotation(ast::getVariable);
+            if (variable != null && constants.containsKey(variable)) {
+                return visit(constants.get(variable));
+            }
+        }
+
+        return super.visit(ast);
+    }
+
+    private void propagate(Environment.Variable variable, Ast.Expression value) {
+        if (variable != null && !assigned.contains(variable) && value instanceof Ast.Expression.Literal) {
+            constants.put(variable, (Ast.Expression.Literal) value);
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Optimization pass that removes code which can never execute: branches of
+ * {@code IF}, {@code WHILE} and {@code SWITCH} statements with literal
+ * conditions, statements following a {@code RETURN} in the same block, and
+ * functions that cannot be reached from {@code main/0}.
+ * <p>
+ * Conditions only become literals after {@link ConstantFolder}, so this pass
+ * is intended to run after it. A branch that is kept is spliced into the
+ * enclosing block unless it declares variables, in which case it is kept in
+ * its own block so the declarations stay scoped.
+ */
+public final class DeadCodeEliminator extends Rewriter {
+
+    private final Set<String> reachable = new HashSet<>();
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        Map<String, Ast.Function> functions = new HashMap<>();
+        for (Ast.Function function : ast.getFunctions()) {
+            functions.put(key(function.getName(), function.getParameters().size()), function);
+        }
+
+        if (!functions.containsKey(key("main", 0))) {
+            reachable.addAll(functions.keySet());
+            return super.visit(ast);
+        }
+
+        Deque<Ast> worklist = new ArrayDeque<>(ast.getGlobals());
+        worklist.add(functions.get(key("main", 0)));
+        reachable.add(key("main", 0));
+        while (!worklist.isEmpty()) {
+            walk(worklist.pop(), node -> {
+                if (node instanceof Ast.Expression.Function) {
+                    String key = key(((Ast.Expression.Function) node).getName(), ((Ast.Expression.Function) node).getArguments().size());
+                    if (functions.containsKey(key) && reachable.add(key)) {
+                        worklist.add(functions.get(key));
+                    }
+                }
+            });
+        }
+
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Function ast) {
+        if (!reachable.contains(key(ast.getName(), ast.getParameters().size()))) {
+            removed += size(ast);
+            return null;
+        }
+
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.If ast) {
+        Ast.Expression condition = expression(ast.getCondition());
+        if (condition instanceof Ast.Expression.Literal && ((Ast.Expression.Literal) condition).getLiteral() instanceof Boolean) {
+            boolean taken = (Boolean) ((Ast.Expression.Literal) condition).getLiteral();
+            removed += size(ast) - 1;
+            for (Ast.Statement statement : taken ? ast.getThenStatements() : ast.getElseStatements()) {
+                removed -= size(statement);
+            }
+
+            return branch(taken ? ast.getThenStatements() : ast.getElseStatements());
+        }
+
+        return new Ast.Statement.If(condition, block(ast.getThenStatements()), block(ast.getElseStatements()));
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Switch ast) {
+        Ast.Expression condition = expression(ast.getCondition());
+        if (condition instanceof Ast.Expression.Literal) {
+            Optional<Ast.Statement.Case> selected = select(((Ast.Expression.Literal) condition).getLiteral(), ast.getCases());
+            if (selected.isPresent()) {
+                removed += size(ast) - 1;
+                for (Ast.Statement statement : selected.get().getStatements()) {
+                    removed -= size(statement);
+                }
+
+                return branch(selected.get().getStatements());
+            }
+        }
+
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.While ast) {
+        if (ast.getCondition() instanceof Ast.Expression.Literal && Boolean.FALSE.equals(((Ast.Expression.Literal) ast.getCondition()).getLiteral())) {
+            removed += size(ast);
+            return null;
+        }
+
+        return super.visit(ast);
+    }
+
+    @Override
+    protected List<Ast.Statement> block(List<Ast.Statement> statements) {
+        List<Ast.Statement> result = super.block(statements);
+        for (int i = 0; i < result.size(); i++) {
+            if (result.get(i) instanceof Ast.Statement.Return) {
+                while (result.size() > i + 1) {
+                    removed += size(result.remove(i + 1));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Replaces a statement with the statements of the branch that is always
+     * taken, splicing them into the enclosing block when that doesn't change
+     * the scope of any declarations.
+     */
+    private Ast.Statement branch(List<Ast.Statement> statements) {
+        List<Ast.Statement> rewritten = block(statements);
+        if (rewritten.isEmpty()) {
+            removed++;
+            return null;
+        }
+
+        for (Ast.Statement statement : rewritten) {
+            if (statement instanceof Ast.Statement.Declaration) {
+                Ast.Expression.Literal condition = new Ast.Expression.Literal(Boolean.TRUE);
+                condition.setType(Environment.Type.BOOLEAN);
+                removed--;
+                return new Ast.Statement.If(condition, rewritten, new ArrayList<>());
+            }
+        }
+
+        removed++;
+        rewritten.forEach(this::emit);
+        return null;
+    }
+
+    /**
+     * Returns the case a switch over a literal condition always selects, or
+     * an empty optional if that depends on a case value which isn't a literal.
+     */
+    private static Optional<Ast.Statement.Case> select(Object condition, List<Ast.Statement.Case> cases) {
+        if (condition == null) {
+            return Optional.empty();
+        }
+
+        for (Ast.Statement.Case current : cases) {
+            if (!current.getValue().isPresent()) {
+                return Optional.of(current);
+            } else if (!(current.getValue().get() instanceof Ast.Expression.Literal)) {
+                return Optional.empty();
+            } else if (condition.equals(((Ast.Expression.Literal) current.getValue().get()).getLiteral())) {
+                return Optional.of(current);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private static String key(String name, int arity) {
+        return name + "/" + arity;
+    }
+
+}
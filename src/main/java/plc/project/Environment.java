@@ -1,18 +1,102 @@
 package plc.project;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 public final class Environment {
 
+    // runtime values have no members of their own, so they share an empty
+    // scope and type instead of allocating them for every value
+    private static final Scope EMPTY = new Scope(null);
+    private static final Type UNKNOWN = new Type("Unknown", "Unknown", EMPTY);
+
+    public static final PlcObject TRUE = new PlcObject(UNKNOWN, EMPTY, Boolean.TRUE);
+    public static final PlcObject FALSE = new PlcObject(UNKNOWN, EMPTY, Boolean.FALSE);
+
+    private static final ValueCache CACHE = new ValueCache(
+            Integer.getInteger("plc.cache.low", -128),
+            Integer.getInteger("plc.cache.high", 1024)
+    );
+
+    private static final PlcObject[] CHARACTERS = new PlcObject[128];
+
+    static {
+        for (char c = 0; c < CHARACTERS.length; c++) {
+            CHARACTERS[c] = new PlcObject(UNKNOWN, EMPTY, c);
+        }
+    }
+
     public static PlcObject create(Object value) {
-        return new PlcObject(new Scope(null), value);
+        if (value instanceof Boolean) {
+            return create((boolean) value);
+        } else if (value instanceof BigInteger) {
+            return create((BigInteger) value);
+        } else if (value instanceof Character) {
+            return create((char) value);
+        }
+        return new PlcObject(UNKNOWN, EMPTY, value);
+    }
+
+    public static PlcObject create(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Returns the canonical value for ASCII characters, which reads from a
+     * CHARACTER list almost always are, or a new value otherwise.
+     */
+    public static PlcObject create(char value) {
+        return value < CHARACTERS.length ? CHARACTERS[value] : new PlcObject(UNKNOWN, EMPTY, value);
     }
 
-    public static final PlcObject NIL = new PlcObject(Type.NIL, new Scope(null), new Object() {
+    /**
+     * Returns the canonical value for integers in the cached range, which
+     * loop counters and offsets usually are, or a new value otherwise.
+     */
+    public static PlcObject create(BigInteger value) {
+        return CACHE.get(value);
+    }
+
+    /**
+     * Returns an INTEGER value backed by a primitive {@code long}, so
+     * arithmetic on it doesn't need a {@link BigInteger} until one is
+     * requested with {@link PlcObject#getValue()}.
+     */
+    public static PlcObject createInteger(long value) {
+        return CACHE.get(value);
+    }
+
+    /**
+     * Returns a DECIMAL value backed by a primitive {@code double}, which
+     * {@link PlcObject#getValue()} converts to a {@link BigDecimal}. Values
+     * which overflow a double (or are NaN) have no DECIMAL equivalent.
+     */
+    public static PlcObject createDecimal(double value) {
+        if (!Double.isFinite(value)) {
+            throw new RuntimeException("The DECIMAL value " + value + " is out of range!");
+        }
+        return new PlcObject(UNKNOWN, EMPTY, null, PlcObject.DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Returns a STRING value for a concatenation, flattened when
+     * {@link PlcObject#getValue()} is first called.
+     */
+    static PlcObject create(Rope rope) {
+        return new PlcObject(UNKNOWN, EMPTY, rope, PlcObject.ROPE, 0);
+    }
+
+    public static ValueCache getValueCache() {
+        return CACHE;
+    }
+
+    public static final PlcObject NIL = new PlcObject(Type.NIL, EMPTY, new Object() {
 
         @Override
         public String toString() {
@@ -91,18 +175,36 @@ public final class Environment {
 
     public static final class PlcObject {
 
+        private static final byte OBJECT = 0;
+        private static final byte LONG = 1;
+        private static final byte DOUBLE = 2;
+        private static final byte ROPE = 3;
+
         private final Type type;
         private final Scope scope;
-        private final Object value;
+        private final byte kind;
+        private final long bits;
+        private Object value;
 
         public PlcObject(Scope scope, Object value) {
             this(new Type("Unknown", "Unknown", scope), scope, value);
         }
 
         public PlcObject(Type type, Scope scope, Object value) {
+            this(type, scope, value, OBJECT, 0);
+        }
+
+        /**
+         * Creates a value that may be backed by a primitive, in which case
+         * {@code bits} holds the {@code long} or the raw bits of the
+         * {@code double} and {@code value} is its boxed form if known.
+         */
+        private PlcObject(Type type, Scope scope, Object value, byte kind, long bits) {
             this.type = type;
             this.scope = scope;
             this.value = value;
+            this.kind = kind;
+            this.bits = bits;
         }
 
         public Type getType() {
@@ -110,15 +212,135 @@ public final class Environment {
         }
 
         public Object getValue() {
+            Object value = this.value;
+            if (kind == ROPE) {
+                return value.toString();
+            } else if (value == null && kind != OBJECT) {
+                // racing threads compute equal values, so the write is benign
+                value = kind == LONG ? BigInteger.valueOf(bits) : BigDecimal.valueOf(Double.longBitsToDouble(bits));
+                this.value = value;
+            }
             return value;
         }
 
+        public boolean isLong() {
+            return kind == LONG;
+        }
+
+        public long getLong() {
+            return bits;
+        }
+
+        /**
+         * Returns the unflattened STRING if this is a concatenation, or
+         * {@code null} otherwise.
+         */
+        Rope getRope() {
+            return kind == ROPE ? (Rope) value : null;
+        }
+
+        public boolean isDouble() {
+            return kind == DOUBLE;
+        }
+
+        public double getDouble() {
+            return Double.longBitsToDouble(bits);
+        }
+
         @Override
         public String toString() {
             return "Object{" +
                     "type=" + type +
                     ", scope=" + scope +
-                    ", value=" + value +
+                    ", value=" + getValue() +
+                    '}';
+        }
+
+    }
+
+    /**
+     * Preallocated INTEGER values in a fixed range, like the cache behind
+     * {@link Integer#valueOf(int)}. The range defaults to [-128, 1024] and
+     * can be changed with the {@code plc.cache.low} and {@code plc.cache.high}
+     * system properties. Lookups are counted to measure the hit rate.
+     */
+    public static final class ValueCache {
+
+        private final int low;
+        private final int high;
+        private final PlcObject[] integers;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private ValueCache(int low, int high) {
+            if (low > high) {
+                throw new IllegalArgumentException("Invalid cache range [" + low + ", " + high + "].");
+            }
+            this.low = low;
+            this.high = high;
+            this.integers = new PlcObject[high - low + 1];
+            for (int i = 0; i < integers.length; i++) {
+                integers[i] = new PlcObject(UNKNOWN, EMPTY, BigInteger.valueOf(low + i), PlcObject.LONG, low + i);
+            }
+        }
+
+        public int getLow() {
+            return low;
+        }
+
+        public int getHigh() {
+            return high;
+        }
+
+        private PlcObject get(BigInteger value) {
+            if (value.bitLength() < Long.SIZE) {
+                long primitive = value.longValue();
+                if (primitive >= low && primitive <= high) {
+                    hits.increment();
+                    return integers[(int) (primitive - low)];
+                }
+                misses.increment();
+                return new PlcObject(UNKNOWN, EMPTY, value, PlcObject.LONG, primitive);
+            }
+            misses.increment();
+            return new PlcObject(UNKNOWN, EMPTY, value);
+        }
+
+        private PlcObject get(long value) {
+            if (value >= low && value <= high) {
+                hits.increment();
+                return integers[(int) (value - low)];
+            }
+            misses.increment();
+            return new PlcObject(UNKNOWN, EMPTY, null, PlcObject.LONG, value);
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public double getHitRate() {
+            long hits = getHits();
+            long total = hits + getMisses();
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+
+        public void resetStatistics() {
+            hits.reset();
+            misses.reset();
+        }
+
+        @Override
+        public String toString() {
+            return "ValueCache{" +
+                    "low=" + low +
+                    ", high=" + high +
+                    ", hits=" + getHits() +
+                    ", misses=" + getMisses() +
                     '}';
         }
 
@@ -190,13 +412,42 @@ public final class Environment {
 
     }
 
+    /**
+     * Side effects of a function, ordered from least to most restrictive.
+     * Functions are {@link #EFFECTFUL} unless analysis proves otherwise.
+     */
+    public enum Effect {
+
+        /**
+         * Only depends on its arguments and immutable globals.
+         */
+        PURE,
+
+        /**
+         * Reads mutable globals, but doesn't modify any state.
+         */
+        READ_ONLY,
+
+        /**
+         * Writes globals, mutates lists or performs I/O such as print.
+         */
+        EFFECTFUL;
+
+        public Effect join(Effect other) {
+            return compareTo(other) >= 0 ? this : other;
+        }
+
+    }
+
     public static final class Function {
 
         private final String name;
         private final String jvmName;
         private final List<Type> parameterTypes;
         private final Type returnType;
-        private final java.util.function.Function<List<PlcObject>, PlcObject> function;
+        private volatile java.util.function.Function<List<PlcObject>, PlcObject> function;
+        private Effect effect = Effect.EFFECTFUL;
+        private MemoCache memo = null;
 
         public Function(String name, int arity, java.util.function.Function<List<PlcObject>, PlcObject> function) {
             this(name, name, new ArrayList<>(), Type.ANY, function);
@@ -234,8 +485,67 @@ public final class Environment {
             return parameterTypes.size();
         }
 
+        public java.util.function.Function<List<PlcObject>, PlcObject> getImplementation() {
+            return function;
+        }
+
+        /**
+         * Replaces how this function is executed, e.g. with a compiled version
+         * of it. The swap is atomic, so calls already in progress finish with
+         * the previous implementation and later calls use the new one.
+         */
+        public void setImplementation(java.util.function.Function<List<PlcObject>, PlcObject> function) {
+            this.function = function;
+        }
+
+        public Effect getEffect() {
+            return effect;
+        }
+
+        public void setEffect(Effect effect) {
+            this.effect = effect;
+        }
+
+        public MemoCache getMemoization() {
+            return memo;
+        }
+
+        /**
+         * Enables memoizing the results of this function in a cache holding up
+         * to {@code capacity} argument lists, or disables it if the capacity is
+         * zero. Only {@link Effect#PURE} functions can be memoized.
+         */
+        public void setMemoization(int capacity) {
+            if (capacity > 0 && effect != Effect.PURE) {
+                throw new RuntimeException("The function " + name + "/" + getArity() + " is not pure and cannot be memoized.");
+            }
+            memo = capacity > 0 ? new MemoCache(capacity) : null;
+        }
+
         public PlcObject invoke(List<PlcObject> arguments) {
-            return function.apply(arguments);
+            java.util.function.Function<List<PlcObject>, PlcObject> function = this.function;
+            MemoCache memo = this.memo;
+            if (memo == null) {
+                return function.apply(arguments);
+            }
+
+            // lists are mutable, so calls involving them are never cached
+            List<Object> key = new ArrayList<>(arguments.size());
+            for (PlcObject argument : arguments) {
+                if (argument.getValue() instanceof List) {
+                    return function.apply(arguments);
+                }
+                key.add(argument.getValue());
+            }
+
+            PlcObject result = memo.get(key);
+            if (result == null) {
+                result = function.apply(arguments);
+                if (!(result.getValue() instanceof List)) {
+                    memo.put(key, result);
+                }
+            }
+            return result;
         }
 
         @Override
@@ -255,6 +565,7 @@ public final class Environment {
                     ", arity=" + parameterTypes.size() +
                     ", parameterTypes=" + parameterTypes +
                     ", returnType=" + returnType +
+                    ", effect=" + effect +
                     ", function=" + function +
                     '}';
         }
@@ -0,0 +1,371 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Optimization pass that replaces calls to small functions with their
+ * bodies. A function can be inlined if it isn't (even indirectly) recursive,
+ * its body is a number of {@code LET} declarations followed by a single
+ * {@code RETURN}, and the body has at most {@code budget} nodes.
+ * <p>
+ * A call whose function is only a {@code RETURN} is replaced with the
+ * returned expression, with the parameters substituted by the arguments if
+ * those are simple enough that evaluating them later, more than once or not
+ * at all makes no difference. Otherwise the call can still be inlined if it
+ * is the whole value of its statement: the arguments and the declarations in
+ * the body are then placed before the statement, with the parameters and
+ * locals renamed to {@code $} names which can't clash with the caller's,
+ * using a prefix from {@link #fresh(String)} for each inlined call.
+ * <p>
+ * Calls are inlined one level deep, so running the pass again inlines the
+ * small functions called by inlined bodies, and functions which are no longer
+ * called are left for the {@link DeadCodeEliminator}.
+ */
+public final class FunctionInliner extends Rewriter {
+
+    public static final int DEFAULT_BUDGET = 20;
+
+    private final int budget;
+    private Map<String, Integer> profile = null;
+    private int threshold = 0;
+    private final Map<String, Ast.Function> functions = new HashMap<>();
+    private Set<Environment.Variable> globals = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Ast.Expression value = null;
+    private Ast.Expression discarded = null;
+    private int inlined = 0;
+
+    public FunctionInliner() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Creates an inliner for functions whose bodies have at most
+     * {@code budget} nodes.
+     */
+    public FunctionInliner(int budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Only inlines functions called at least {@code threshold} times in the
+     * profile, keyed by {@code name/arity} like {@link TieredInterpreter#getCalls()},
+     * unless inlining them doesn't make the code any larger.
+     */
+    public void setProfile(Map<String, Integer> calls, int threshold) {
+        this.profile = calls;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns the number of calls replaced so far.
+     */
+    public int getInlined() {
+        return inlined;
+    }
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        for (Ast.Global global : ast.getGlobals()) {
+            Environment.Variable variable = annotation(global::getVariable);
+            if (variable != null) {
+                globals.add(variable);
+            }
+        }
+
+        Map<String, Ast.Function> all = new HashMap<>();
+        for (Ast.Function function : ast.getFunctions()) {
+            all.put(key(function.getName(), function.getParameters().size()), function);
+        }
+        for (Ast.Function function : ast.getFunctions()) {
+            if (inlinable(function) && !recursive(function, all)) {
+                functions.put(key(function.getName(), function.getParameters().size()), function);
+            }
+        }
+
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Expression ast) {
+        discarded = ast.getExpression();
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Declaration ast) {
+        value = ast.getValue().orElse(null);
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Assignment ast) {
+        boolean offset = ast.getReceiver() instanceof Ast.Expression.Access && ((Ast.Expression.Access) ast.getReceiver()).getOffset().isPresent();
+        value = offset ? null : ast.getValue();
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Return ast) {
+        value = ast.getValue();
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Function ast) {
+        // a call whose value is discarded stays a call, as the returned
+        // expression on its own isn't a valid statement
+        boolean whole = ast == value;
+        boolean kept = ast == discarded;
+        value = null;
+        Ast.Expression.Function call = (Ast.Expression.Function) super.visit(ast);
+        Ast.Function callee = names() == null || kept ? null : functions.get(key(call.getName(), call.getArguments().size()));
+        if (callee == null || !visible(callee)) {
+            return call;
+        }
+
+        List<String> parameters = callee.getParameters();
+        Ast.Statement.Return body = (Ast.Statement.Return) callee.getStatements().get(callee.getStatements().size() - 1);
+        if (callee.getStatements().size() == 1 && substitutable(callee, call.getArguments())) {
+            Map<String, Ast.Expression> arguments = new HashMap<>();
+            for (int i = 0; i < parameters.size(); i++) {
+                arguments.put(parameters.get(i), call.getArguments().get(i));
+            }
+
+            inlined++;
+            return new Substituter(arguments).expression(body.getValue());
+        } else if (whole) {
+            String prefix = fresh("$inline");
+            Map<String, Environment.Variable> renamed = new HashMap<>();
+            for (int i = 0; i < parameters.size(); i++) {
+                Environment.Type type = callee.getFunction().getParameterTypes().get(i);
+                String name = prefix + "_" + parameters.get(i);
+                Environment.Variable variable = new Environment.Variable(name, name, type, true, Environment.NIL);
+                Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(variable.getName(), Optional.empty(), Optional.of(call.getArguments().get(i)));
+                declaration.setVariable(variable);
+                emit(declaration);
+                renamed.put(parameters.get(i), variable);
+            }
+
+            Renamer renamer = new Renamer(prefix, renamed);
+            for (Ast.Statement statement : callee.getStatements().subList(0, callee.getStatements().size() - 1)) {
+                emit((Ast.Statement) renamer.visit(statement));
+            }
+
+            inlined++;
+            return renamer.expression(body.getValue());
+        }
+
+        return call;
+    }
+
+    /**
+     * Returns whether the function has the shape and size to be inlined and
+     * returns exactly its declared type, so the call's type is unchanged.
+     */
+    private boolean inlinable(Ast.Function function) {
+        List<Ast.Statement> statements = function.getStatements();
+        Environment.Function annotation = annotation(function::getFunction);
+        if (annotation == null || statements.isEmpty() || !(statements.get(statements.size() - 1) instanceof Ast.Statement.Return)) {
+            return false;
+        }
+
+        int size = 0;
+        for (int i = 0; i < statements.size(); i++) {
+            if (i < statements.size() - 1 && !(statements.get(i) instanceof Ast.Statement.Declaration && ((Ast.Statement.Declaration) statements.get(i)).getValue().isPresent())) {
+                return false;
+            }
+            size += size(statements.get(i));
+        }
+
+        Ast.Expression result = ((Ast.Statement.Return) statements.get(statements.size() - 1)).getValue();
+        if (size > budget || annotation(result::getType) != annotation.getReturnType()) {
+            return false;
+        }
+
+        if (profile != null && profile.getOrDefault(key(function.getName(), function.getParameters().size()), 0) < threshold) {
+            return statements.size() == 1 && size(result) <= 1 + function.getParameters().size();
+        }
+        return true;
+    }
+
+    private static boolean recursive(Ast.Function function, Map<String, Ast.Function> functions) {
+        Set<String> visited = new HashSet<>();
+        Deque<Ast.Function> worklist = new ArrayDeque<>();
+        worklist.add(function);
+        while (!worklist.isEmpty()) {
+            walk(worklist.pop(), node -> {
+                if (node instanceof Ast.Expression.Function) {
+                    String key = key(((Ast.Expression.Function) node).getName(), ((Ast.Expression.Function) node).getArguments().size());
+                    if (functions.containsKey(key) && visited.add(key)) {
+                        worklist.add(functions.get(key));
+                    }
+                }
+            });
+        }
+
+        return visited.contains(key(function.getName(), function.getParameters().size()));
+    }
+
+    /**
+     * Returns whether every global the function reads is still visible in
+     * the caller, rather than shadowed by one of its parameters or locals.
+     */
+    private boolean visible(Ast.Function callee) {
+        Set<String> names = names();
+        boolean[] visible = {true};
+        walk(callee, node -> {
+            if (node instanceof Ast.Expression.Access && !callee.getParameters().contains(((Ast.Expression.Access) node).getName())) {
+                Environment.Variable variable = annotation(((Ast.Expression.Access) node)::getVariable);
+                visible[0] &= !globals.contains(variable) || !names.contains(variable.getName());
+            }
+        });
+        return visible[0];
+    }
+
+    /**
+     * Returns whether the parameters can be replaced with the arguments. Each
+     * argument must be unable to fail or have side effects, match the
+     * parameter's type, and, unless it is a literal or variable, be used at
+     * most once. A list parameter read at an offset needs a variable
+     * argument, and if the function may change globals the arguments can't
+     * read them.
+     */
+    private boolean substitutable(Ast.Function callee, List<Ast.Expression> arguments) {
+        Environment.Function function = callee.getFunction();
+        for (int i = 0; i < arguments.size(); i++) {
+            Ast.Expression argument = arguments.get(i);
+            String parameter = callee.getParameters().get(i);
+            if (!safe(argument) || annotation(argument::getType) != function.getParameterTypes().get(i)) {
+                return false;
+            }
+
+            int[] uses = {0};
+            boolean[] offset = {false};
+            boolean[] global = {false};
+            walk(callee, node -> {
+                if (node instanceof Ast.Expression.Access && ((Ast.Expression.Access) node).getName().equals(parameter)) {
+                    uses[0]++;
+                    offset[0] |= ((Ast.Expression.Access) node).getOffset().isPresent();
+                }
+            });
+            walk(argument, node -> {
+                if (node instanceof Ast.Expression.Access) {
+                    global[0] |= globals.contains(((Ast.Expression.Access) node).getVariable());
+                }
+            });
+
+            boolean simple = argument instanceof Ast.Expression.Literal || argument instanceof Ast.Expression.Access;
+            if ((!simple && uses[0] > 1) || (offset[0] && !(argument instanceof Ast.Expression.Access))
+                    || (global[0] && function.getEffect() == Environment.Effect.EFFECTFUL)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean safe(Ast.Expression ast) {
+        if (ast instanceof Ast.Expression.Literal) {
+            return true;
+        } else if (ast instanceof Ast.Expression.Group) {
+            return safe(((Ast.Expression.Group) ast).getExpression());
+        } else if (ast instanceof Ast.Expression.Binary) {
+            Ast.Expression.Binary binary = (Ast.Expression.Binary) ast;
+            return !binary.getOperator().equals("/") && !binary.getOperator().equals("^") && safe(binary.getLeft()) && safe(binary.getRight());
+        } else if (ast instanceof Ast.Expression.Access) {
+            return !((Ast.Expression.Access) ast).getOffset().isPresent() && annotation(((Ast.Expression.Access) ast)::getVariable) != null;
+        }
+        return false;
+    }
+
+    private static String key(String name, int arity) {
+        return name + "/" + arity;
+    }
+
+    /**
+     * Copies a returned expression, replacing parameters with the arguments.
+     */
+    private static final class Substituter extends Rewriter {
+
+        private final Map<String, Ast.Expression> arguments;
+
+        private Substituter(Map<String, Ast.Expression> arguments) {
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Access ast) {
+            Ast.Expression argument = arguments.get(ast.getName());
+            if (argument == null) {
+                return super.visit(ast);
+            } else if (!ast.getOffset().isPresent()) {
+                return argument;
+            }
+
+            Ast.Expression.Access access = new Ast.Expression.Access(ast.getOffset().map(this::expression), ((Ast.Expression.Access) argument).getName());
+            access.setVariable(annotation(((Ast.Expression.Access) argument)::getVariable));
+            access.setBounded(ast.isBounded());
+            return access;
+        }
+
+    }
+
+    /**
+     * Copies the body of a function, renaming its parameters and locals. A
+     * local left by inlining into the function itself drops its old prefix,
+     * unless that clashes with another name.
+     */
+    private static final class Renamer extends Rewriter {
+
+        private final String prefix;
+        private final Map<String, Environment.Variable> parameters;
+        private final Map<Environment.Variable, Environment.Variable> locals = new IdentityHashMap<>();
+        private final Set<String> used = new HashSet<>();
+
+        private Renamer(String prefix, Map<String, Environment.Variable> parameters) {
+            this.prefix = prefix;
+            this.parameters = parameters;
+            parameters.values().forEach(variable -> used.add(variable.getName()));
+        }
+
+        @Override
+        public Ast visit(Ast.Statement.Declaration ast) {
+            Ast.Expression value = expression(ast.getValue().get());
+            String name = prefix + "_" + ast.getName().replaceFirst("^\\$inline\\d+_", "");
+            if (!used.add(name)) {
+                name = prefix + "_" + ast.getName();
+                used.add(name);
+            }
+            Environment.Variable variable = new Environment.Variable(name, name, ast.getVariable().getType(), true, Environment.NIL);
+            locals.put(ast.getVariable(), variable);
+
+            Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(name, Optional.empty(), Optional.of(value));
+            declaration.setVariable(variable);
+            return declaration;
+        }
+
+        @Override
+        protected Ast.Expression.Access receiver(Ast.Expression.Access ast) {
+            Environment.Variable variable = parameters.containsKey(ast.getName()) ? parameters.get(ast.getName()) : locals.get(annotation(ast::getVariable));
+            if (variable == null) {
+                return super.receiver(ast);
+            }
+
+            Ast.Expression.Access access = new Ast.Expression.Access(ast.getOffset().map(this::expression), variable.getName());
+            access.setVariable(variable);
+            access.setBounded(ast.isBounded());
+            return access;
+        }
+
+    }
+
+}
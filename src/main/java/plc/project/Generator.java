@@ -0,0 +1,458 @@
+package plc.project;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a Java class from an analyzed AST, with a static field for each
+ * global and a static method for each function, for {@link JvmCompiler} to
+ * compile and run. Values keep the interpreter's representation, so Integer
+ * and Decimal become BigInteger and BigDecimal rather than the primitive
+ * {@code jvmName}s of their types, which would change overflow and rounding.
+ * <p>
+ * Lists, and calls to functions not defined in the source besides
+ * {@code print}, aren't supported and throw an
+ * {@link UnsupportedOperationException} so the caller can fall back to the
+ * interpreter.
+ */
+public final class Generator implements Ast.Visitor<Void> {
+
+    static final String CLASS = "Program";
+
+    private PrintWriter writer;
+    private int indent = 0;
+    private final Map<Object, String> constants = new LinkedHashMap<>();
+    private final Set<Environment.Function> functions = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int switches = 0;
+
+    public Generator(PrintWriter writer) {
+        this.writer = writer;
+    }
+
+    private void print(Object... objects) {
+        for (Object object : objects) {
+            if (object instanceof Ast) {
+                visit((Ast) object);
+            } else {
+                writer.write(object.toString());
+            }
+        }
+    }
+
+    private void newline(int indent) {
+        writer.println();
+        for (int i = 0; i < indent; i++) {
+            writer.write("    ");
+        }
+    }
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        boolean main = false;
+        for (Ast.Function function : ast.getFunctions()) {
+            functions.add(function.getFunction());
+            main |= function.getName().equals("main") && function.getParameters().isEmpty();
+        }
+        if (!main) {
+            throw new UnsupportedOperationException("The function main/0 is not defined.");
+        }
+
+        // members are generated first since they determine the constants,
+        // which have to be declared before any global that uses them
+        PrintWriter output = writer;
+        StringWriter members = new StringWriter();
+        writer = new PrintWriter(members);
+        indent = 1;
+        if (!ast.getGlobals().isEmpty()) {
+            newline(0);
+            for (Ast.Global global : ast.getGlobals()) {
+                newline(indent);
+                print(global);
+            }
+        }
+        for (Ast.Function function : ast.getFunctions()) {
+            newline(0);
+            newline(indent);
+            print(function);
+        }
+        writer.flush();
+        writer = output;
+
+        print("import java.math.BigDecimal;");
+        newline(0);
+        print("import java.math.BigInteger;");
+        newline(0);
+        print("import java.math.MathContext;");
+        newline(0);
+        print("import java.math.RoundingMode;");
+        newline(0);
+        newline(0);
+        print("public final class ", CLASS, " {");
+        if (!constants.isEmpty()) {
+            newline(0);
+            for (Map.Entry<Object, String> constant : constants.entrySet()) {
+                newline(1);
+                Object literal = constant.getKey();
+                if (literal instanceof BigInteger) {
+                    print("private static final BigInteger ", constant.getValue(), " = new BigInteger(\"", literal, "\");");
+                } else if (literal instanceof BigDecimal) {
+                    print("private static final BigDecimal ", constant.getValue(), " = new BigDecimal(\"", literal, "\");");
+                } else {
+                    print("private static final Character ", constant.getValue(), " = ", escape((Character) literal, '\''), ";");
+                }
+            }
+        }
+        print(members.toString());
+        newline(0);
+        for (String line : RUNTIME) {
+            newline(line.isEmpty() ? 0 : 1);
+            print(line);
+        }
+        newline(0);
+        newline(0);
+        print("}");
+        newline(0);
+        writer.flush();
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Global ast) {
+        if (!ast.getMutable() && !ast.getValue().isPresent()) {
+            throw new UnsupportedOperationException("The immutable global " + ast.getName() + " is not initialized.");
+        }
+
+        print("static ", ast.getMutable() ? "" : "final ", type(ast.getVariable().getType()), " ", ast.getVariable().getJvmName(), " = ");
+        print(ast.getValue().isPresent() ? ast.getValue().get() : "null", ";");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Function ast) {
+        Environment.Function function = ast.getFunction();
+        print("public static ", type(function.getReturnType()), " ", function.getJvmName(), "(");
+        for (int i = 0; i < ast.getParameters().size(); i++) {
+            print(i == 0 ? "" : ", ", type(function.getParameterTypes().get(i)), " ", ast.getParameters().get(i));
+        }
+        print(") {");
+        boolean completes = block(ast.getStatements());
+        if (completes && function.getReturnType() != Environment.Type.NIL) {
+            newline(indent + 1);
+            print("return null;");
+        }
+        newline(indent);
+        print("}");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Expression ast) {
+        if (!(ast.getExpression() instanceof Ast.Expression.Function)) {
+            throw new UnsupportedOperationException("Only function calls can be used as statements in Java.");
+        }
+        print(ast.getExpression(), ";");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Declaration ast) {
+        print(type(ast.getVariable().getType()), " ", ast.getVariable().getJvmName(), " = ");
+        print(ast.getValue().isPresent() ? ast.getValue().get() : "null", ";");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expression.Access) || ((Ast.Expression.Access) ast.getReceiver()).getOffset().isPresent()) {
+            throw new UnsupportedOperationException("Lists are not supported.");
+        }
+        print(ast.getReceiver(), " = ", ast.getValue(), ";");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.If ast) {
+        print("if (", ast.getCondition(), ") {");
+        block(ast.getThenStatements());
+        newline(indent);
+        if (!ast.getElseStatements().isEmpty()) {
+            print("} else {");
+            block(ast.getElseStatements());
+            newline(indent);
+        }
+        print("}");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Switch ast) {
+        String condition = "$switch" + switches++;
+        print(type(ast.getCondition().getType()), " ", condition, " = ", ast.getCondition(), ";");
+        newline(indent);
+        List<Ast.Statement.Case> cases = ast.getCases();
+        for (int i = 0; i < cases.size() - 1; i++) {
+            Ast.Statement.Case current = cases.get(i);
+            if (current.getValue().isPresent()) {
+                print("if (", condition, ".equals(", current.getValue().get(), ")) {");
+                block(current.getStatements());
+                newline(indent);
+                print("} else ");
+            }
+        }
+        // as in the interpreter, the last case runs when no other matches
+        print("{");
+        block(cases.get(cases.size() - 1).getStatements());
+        newline(indent);
+        print("}");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Case ast) {
+        throw new AssertionError("Cases are generated by their switch statement.");
+    }
+
+    @Override
+    public Void visit(Ast.Statement.While ast) {
+        print("while (", ast.getCondition(), ") {");
+        block(ast.getStatements());
+        newline(indent);
+        print("}");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Return ast) {
+        print("return ", ast.getValue(), ";");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Literal ast) {
+        Object literal = ast.getLiteral();
+        if (literal == null) {
+            print("null");
+        } else if (literal instanceof Boolean) {
+            print(literal);
+        } else if (literal instanceof String) {
+            print(escape((String) literal, '"'));
+        } else {
+            print(constants.computeIfAbsent(literal, value -> "$" + constants.size()));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Group ast) {
+        print("(", ast.getExpression(), ")");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Binary ast) {
+        Environment.Type left = ast.getLeft().getType();
+        switch (ast.getOperator()) {
+            case "&&":
+            case "||":
+                print("(", ast.getLeft(), " ", ast.getOperator(), " ", ast.getRight(), ")");
+                return null;
+            case "<":
+            case ">":
+            case "==":
+            case "!=":
+                print("(", ast.getLeft(), ".compareTo(", ast.getRight(), ") ", ast.getOperator(), " 0)");
+                return null;
+            case "+":
+                if (left == Environment.Type.STRING || ast.getRight().getType() == Environment.Type.STRING) {
+                    print("(", ast.getLeft(), " + ", ast.getRight(), ")");
+                    return null;
+                }
+                return arithmetic(ast, "add");
+            case "-":
+                return arithmetic(ast, "subtract");
+            case "*":
+                return arithmetic(ast, "multiply");
+            case "/":
+                print("$divide(", ast.getLeft(), ", ", ast.getRight(), ")");
+                return null;
+            case "^":
+                print("$power(", ast.getLeft(), ", ", ast.getRight(), ")");
+                return null;
+            default:
+                throw new UnsupportedOperationException("Unknown operator " + ast.getOperator() + ".");
+        }
+    }
+
+    private Void arithmetic(Ast.Expression.Binary ast, String method) {
+        Environment.Type left = ast.getLeft().getType();
+        if (left != Environment.Type.INTEGER && left != Environment.Type.DECIMAL) {
+            throw new UnsupportedOperationException("Invalid operand type " + left.getName() + " for " + ast.getOperator() + ".");
+        }
+        print(ast.getLeft(), ".", method, "(", ast.getRight(), ")");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Access ast) {
+        if (ast.getOffset().isPresent()) {
+            throw new UnsupportedOperationException("Lists are not supported.");
+        }
+        print(ast.getVariable().getJvmName());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Function ast) {
+        Environment.Function function = ast.getFunction();
+        if (!functions.contains(function) && !function.getJvmName().equals("System.out.println")) {
+            throw new UnsupportedOperationException("The function " + ast.getName() + "/" + ast.getArguments().size() + " is not defined in the source.");
+        }
+
+        print(function.getJvmName(), "(");
+        for (int i = 0; i < ast.getArguments().size(); i++) {
+            print(i == 0 ? "" : ", ", ast.getArguments().get(i));
+        }
+        print(")");
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.PlcList ast) {
+        throw new UnsupportedOperationException("Lists are not supported.");
+    }
+
+    /**
+     * Generates the statements of a block, returning whether it can complete
+     * normally. Statements after one that can't are never executed, and are
+     * skipped since Java rejects unreachable code.
+     */
+    private boolean block(List<Ast.Statement> statements) {
+        indent++;
+        try {
+            for (Ast.Statement statement : statements) {
+                newline(indent);
+                print(statement);
+                if (!completes(statement)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            indent--;
+        }
+    }
+
+    /**
+     * Returns whether Java considers the generated statement able to complete
+     * normally, following its reachability rules.
+     */
+    private static boolean completes(Ast.Statement statement) {
+        if (statement instanceof Ast.Statement.Return) {
+            return false;
+        } else if (statement instanceof Ast.Statement.If) {
+            return completes(((Ast.Statement.If) statement).getThenStatements()) || completes(((Ast.Statement.If) statement).getElseStatements());
+        } else if (statement instanceof Ast.Statement.Switch) {
+            for (Ast.Statement.Case current : ((Ast.Statement.Switch) statement).getCases()) {
+                if (completes(current.getStatements())) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (statement instanceof Ast.Statement.While) {
+            Ast.Expression condition = ((Ast.Statement.While) statement).getCondition();
+            return !(condition instanceof Ast.Expression.Literal && Boolean.TRUE.equals(((Ast.Expression.Literal) condition).getLiteral()));
+        }
+        return true;
+    }
+
+    private static boolean completes(List<Ast.Statement> statements) {
+        for (Ast.Statement statement : statements) {
+            if (!completes(statement)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String type(Environment.Type type) {
+        if (type == Environment.Type.INTEGER) {
+            return "BigInteger";
+        } else if (type == Environment.Type.DECIMAL) {
+            return "BigDecimal";
+        } else if (type == Environment.Type.BOOLEAN) {
+            return "Boolean";
+        } else if (type == Environment.Type.CHARACTER) {
+            return "Character";
+        } else if (type == Environment.Type.STRING) {
+            return "String";
+        } else if (type == Environment.Type.NIL) {
+            return "void";
+        } else if (type == Environment.Type.COMPARABLE) {
+            return "Comparable";
+        } else if (type == Environment.Type.ANY) {
+            return "Object";
+        }
+        throw new UnsupportedOperationException("Unsupported type " + type.getName() + ".");
+    }
+
+    private static String escape(Object literal, char quote) {
+        StringBuilder builder = new StringBuilder().append(quote);
+        for (char c : literal.toString().toCharArray()) {
+            switch (c) {
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\t': builder.append("\\t"); break;
+                case '\b': builder.append("\\b"); break;
+                case '\f': builder.append("\\f"); break;
+                case '\'': builder.append(quote == '\'' ? "\\'" : "'"); break;
+                case '"': builder.append(quote == '"' ? "\\\"" : "\""); break;
+                default: builder.append(c);
+            }
+        }
+        return builder.append(quote).toString();
+    }
+
+    /**
+     * Helpers for operators without a direct Java equivalent, matching the
+     * results and errors of {@link Operators}.
+     */
+    private static final String[] RUNTIME = {
+            "private static BigInteger $divide(BigInteger left, BigInteger right) {",
+            "    if (right.signum() == 0)",
+            "        throw new RuntimeException(\"Cannot divide by 0\");",
+            "    return left.divide(right);",
+            "}",
+            "",
+            "private static BigDecimal $divide(BigDecimal left, BigDecimal right) {",
+            "    if (right.signum() == 0)",
+            "        throw new RuntimeException(\"Cannot divide by 0.0\");",
+            "    return left.divide(right, RoundingMode.HALF_EVEN);",
+            "}",
+            "",
+            "private static BigInteger $power(BigInteger base, BigInteger exponent) {",
+            "    if (exponent.signum() < 0 && base.signum() == 0)",
+            "        throw new RuntimeException(\"Cannot divide by 0\");",
+            "    if (base.abs().compareTo(BigInteger.ONE) <= 0)",
+            "        return exponent.signum() == 0 || (base.signum() < 0 && !exponent.testBit(0)) ? BigInteger.ONE : base;",
+            "    return exponent.signum() < 0 ? BigInteger.ZERO : base.pow(exponent.intValueExact());",
+            "}",
+            "",
+            "private static BigDecimal $power(BigDecimal base, BigInteger exponent) {",
+            "    if (exponent.signum() >= 0)",
+            "        return base.pow(exponent.intValueExact());",
+            "    if (base.signum() == 0)",
+            "        throw new RuntimeException(\"Cannot divide by 0.0\");",
+            "    return base.pow(exponent.intValueExact(), MathContext.DECIMAL128);",
+            "}",
+    };
+
+}
@@ -1,19 +1,28 @@
 package plc.project;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.math.RoundingMode;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     private Scope scope = new Scope(null);
+    private int memoization = 0;
+    private boolean doubles = false;
 
     public Interpreter(Scope parent) {
-        scope = new Scope(parent);
+        scope = builtins(parent);
+    }
+
+    /**
+     * Returns a new scope with the builtin functions, which the other
+     * execution engines share with the interpreter.
+     */
+    static Scope builtins(Scope parent) {
+        Scope scope = new Scope(parent);
         scope.defineFunction("print", 1, args -> {
             System.out.println(args.get(0).getValue());
             return Environment.NIL;
@@ -24,26 +33,35 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                         throw new RuntimeException("Expected a BigDecimal, received " + args.get(0).getValue().getClass().getName()+".");
                     }
                     BigDecimal bd1 = (BigDecimal) args.get(0).getValue();
-                    BigDecimal bd2 = requireType(BigDecimal.class, Environment.create(args.get(0).getValue()));
+                    BigDecimal bd2 = Operators.requireType(BigDecimal.class, Environment.create(args.get(0).getValue()));
                     BigDecimal result = BigDecimal.valueOf(Math.log(bd2.doubleValue()));
                     return Environment.create(result);
                 }
         );
+        return scope;
+    }
+
+    public Scope getScope() {
+        return scope;
     }
 
     /**
-     * Helper function to ensure an object is of the appropriate type.
+     * Memoizes every function the analyzer proved pure with a cache holding up
+     * to {@code capacity} argument lists, or disables memoization if zero.
+     * Applies to functions defined after this is called, so it should be set
+     * before visiting the source.
      */
-    private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
-        if (type.isInstance(object.getValue())) {
-            return type.cast(object.getValue());
-        } else {
-            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
-        }
+    public void setMemoization(int capacity) {
+        this.memoization = capacity;
     }
 
-    public Scope getScope() {
-        return scope;
+    /**
+     * Represents DECIMAL values as primitive doubles, matching their JVM type
+     * in the analyzer, instead of BigDecimals. This is much faster, but rounds
+     * like double arithmetic rather than keeping the exact decimal value.
+     */
+    public void setDoubleDecimals(boolean doubles) {
+        this.doubles = doubles;
     }
 
     @Override
@@ -82,26 +100,45 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Function ast) {
         Scope currentScope = scope;
-        scope.defineFunction(ast.getName(), ast.getParameters().size(), args -> {
+        Environment.Function function = scope.defineFunction(ast.getName(), ast.getParameters().size(), args -> {
             Scope childScope = scope;
+            List<Environment.PlcObject> arguments = args;
             try {
-                scope = new Scope(currentScope);
-                List<String> params = ast.getParameters();
-                for (int i = 0; i < ast.getParameters().size(); i++) {
-                    scope.defineVariable(params.get(i), true, args.get(i));
-                }
+                // tail calls restart the body with new arguments and a fresh scope
+                while (true) {
+                    scope = new Scope(currentScope);
+                    List<String> params = ast.getParameters();
+                    for (int i = 0; i < ast.getParameters().size(); i++) {
+                        scope.defineVariable(params.get(i), true, arguments.get(i));
+                    }
 
-                List<Ast.Statement> statements = ast.getStatements();
-                for (int j = 0; j < statements.size(); j++) {
-                    visit(statements.get(j));
+                    try {
+                        List<Ast.Statement> statements = ast.getStatements();
+                        for (int j = 0; j < statements.size(); j++) {
+                            visit(statements.get(j));
+                        }
+                        return Environment.NIL;
+                    } catch (TailCall call) {
+                        arguments = call.arguments;
+                    }
                 }
-                return Environment.NIL;
             } catch (Return ret) {
                 return ret.value;
             } finally {
                 scope = childScope;
             }
         });
+
+        try {
+            function.setEffect(ast.getFunction().getEffect());
+        } catch (IllegalStateException e) {
+            // not analyzed, so keep assuming the function has side effects
+        }
+
+        if (memoization > 0 && function.getEffect() == Environment.Effect.PURE) {
+            function.setMemoization(memoization);
+        }
+
         return Environment.NIL;
     }
 
@@ -136,12 +173,8 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
             boolean present = accessReceiver.getOffset().isPresent();
             if (present) {
-                BigInteger offset = requireType(BigInteger.class, visit(((Ast.Expression.Access) ast.getReceiver()).getOffset().get()));
-                List vars = requireType(List.class, env.getValue());
-                if (offset.compareTo(BigInteger.ZERO) < 0 || offset.compareTo(BigInteger.valueOf(vars.size() - 1)) > 0)
-                    throw new RuntimeException("Offset out of range!");
-
-                vars.set(offset.intValue(), visit(ast.getValue()).getValue());
+                Environment.PlcObject offset = visit(accessReceiver.getOffset().get());
+                Operators.set(env.getValue(), offset, visit(ast.getValue()));
             } else {
                 env.setValue(visit(ast.getValue()));
             }
@@ -155,7 +188,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Statement.If ast) {
         scope = new Scope(scope);
-        if (requireType(Boolean.class, visit(ast.getCondition()))) {
+        if (Operators.requireType(Boolean.class, visit(ast.getCondition()))) {
             for (int i = 0; i < ast.getThenStatements().size(); i++) {
                 visit(ast.getThenStatements().get(i));
             }
@@ -171,20 +204,29 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Statement.Switch ast) {
-        scope = new Scope(scope);
+        Comparable<?> condition = Operators.requireType(Comparable.class, visit(ast.getCondition()));
         List<Ast.Statement.Case> cases = ast.getCases();
-        for (Ast.Statement.Case current : ast.getCases()) {
-            if (current.getValue().isPresent()) {
-                if (requireType(Comparable.class, visit(ast.getCondition())).equals(requireType(Comparable.class, visit(current)))) {
-                    current.getStatements().forEach(curr -> visit(curr));
-                    return Environment.NIL;
+        int offset = cases.size() - 1;
+        Optional<Map<Object, Integer>> table = ast.getJumpTable();
+        // the table is keyed by the exact literals, which doubles don't keep
+        // (2.50 reads back as 2.5), so DECIMAL cases are compared one by one
+        if (table.isPresent() && !(doubles && condition instanceof BigDecimal)) {
+            offset = table.get().getOrDefault(condition, offset);
+        } else {
+            for (int i = 0; i < cases.size(); i++) {
+                if (cases.get(i).getValue().isPresent() && condition.equals(Operators.requireType(Comparable.class, visit(cases.get(i))))) {
+                    offset = i;
+                    break;
                 }
             }
         }
 
-        int offset = cases.size() - 1;
-        List<Ast.Statement> statements = cases.get(offset).getStatements();
-        statements.forEach(curr -> visit(curr));
+        scope = new Scope(scope);
+        try {
+            cases.get(offset).getStatements().forEach(statement -> visit(statement));
+        } finally {
+            scope = scope.getParent();
+        }
         return Environment.NIL;
     }
 
@@ -194,22 +236,39 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         return visit(expression.get());
     }
 
+    /**
+     * Called before each iteration of a while loop, for subclasses that
+     * profile execution.
+     */
+    protected void backEdge(Ast.Statement.While ast) {}
+
     @Override
     public Environment.PlcObject visit(Ast.Statement.While ast) {
-        while (requireType(Boolean.class, visit(ast.getCondition()))) {
+        while (Operators.requireType(Boolean.class, visit(ast.getCondition()))) {
+            backEdge(ast);
             scope = new Scope(scope);
-            for (Ast.Statement statement : ast.getStatements()) {
-                visit(statement);
+            try {
+                for (Ast.Statement statement : ast.getStatements()) {
+                    visit(statement);
+                }
+            } finally {
+                scope = scope.getParent();
             }
         }
 
-        scope = scope.getParent();
         return Environment.NIL;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Statement.Return ast) {
         Ast.Expression expression = ast.getValue();
+        if (ast.isTailCall()) {
+            List<Environment.PlcObject> args = new java.util.ArrayList<>();
+            for (Ast.Expression arg : ((Ast.Expression.Function) expression).getArguments())
+                args.add(visit(arg));
+
+            throw new TailCall(args);
+        }
         throw new Return(visit(expression));
     }
 
@@ -218,6 +277,8 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         Object literal = ast.getLiteral();
         if (Objects.isNull(literal))
             return Environment.NIL;
+        else if (doubles && literal instanceof BigDecimal)
+            return Environment.createDecimal(((BigDecimal) literal).doubleValue());
         else
             return Environment.create(literal);
     }
@@ -231,120 +292,45 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Expression.Binary ast) {
-        Environment.PlcObject lhs;
-        Environment.PlcObject rhs;
-        if (Objects.nonNull(ast)) {
-            visit(ast.getLeft());
-            if (Objects.equals(ast.getOperator(), "&&")) {
-                return Environment.create(requireType(Boolean.class, visit(ast.getLeft())) && requireType(Boolean.class, visit(ast.getRight())));
-            } else if (Objects.equals(ast.getOperator(), "||")) {
-                return Environment.create(requireType(Boolean.class, visit(ast.getLeft())) || requireType(Boolean.class, visit(ast.getRight())));
-            } else if (Objects.equals(ast.getOperator(), ">")) {
-                return Environment.create(requireType(Comparable.class, visit(ast.getLeft())).compareTo(requireType(Comparable.class, visit(ast.getRight()))) > 0);
-            } else if (Objects.equals(ast.getOperator(), "<")) {
-                return Environment.create(requireType(Comparable.class, visit(ast.getLeft())).compareTo(requireType(Comparable.class, visit(ast.getRight()))) < 0);
-            } else if (Objects.equals(ast.getOperator(), "==")) {
-                return Environment.create(requireType(Comparable.class, visit(ast.getLeft())).compareTo(requireType(Comparable.class, visit(ast.getRight()))) == 0);
-            } else if (Objects.equals(ast.getOperator(), "!=")) {
-                return Environment.create(requireType(Comparable.class, visit(ast.getLeft())).compareTo(requireType(Comparable.class, visit(ast.getRight()))) != 0);
-            } else if (Objects.equals(ast.getOperator(), "+")) {
-                lhs = visit(ast.getLeft());
-                rhs = visit(ast.getRight());
-                if (lhs.getValue() instanceof String || rhs.getValue() instanceof String) {
-                    return Environment.create(lhs.getValue().toString() + rhs.getValue().toString());
-                } else if (lhs.getValue() instanceof BigInteger) {
-                    BigInteger bigInt = (BigInteger) lhs.getValue();
-                    return Environment.create(bigInt.add(requireType(BigInteger.class, rhs)));
-                } else if (lhs.getValue() instanceof BigDecimal) {
-                    BigDecimal bigDec = (BigDecimal) lhs.getValue();
-                    return Environment.create(bigDec.add(requireType(BigDecimal.class, rhs)));
-                } else {
-                    throw new RuntimeException("Invalid addition objects!");
-                }
-            } else if (Objects.equals(ast.getOperator(), "-")) {
-                lhs = visit(ast.getLeft());
-                rhs = visit(ast.getRight());
-                if (lhs.getValue() instanceof BigInteger) {
-                    BigInteger bigInt = (BigInteger) lhs.getValue();
-                    return Environment.create(bigInt.subtract(requireType(BigInteger.class, rhs)));
-                } else if (lhs.getValue() instanceof BigDecimal) {
-                    BigDecimal bigDec = (BigDecimal) lhs.getValue();
-                    return Environment.create(bigDec.subtract(requireType(BigDecimal.class, rhs)));
-                } else {
-                    throw new RuntimeException("Invalid subtraction objects!");
-                }
-            } else if (Objects.equals(ast.getOperator(), "*")) {
-                lhs = visit(ast.getLeft());
-                rhs = visit(ast.getRight());
-                if (lhs.getValue() instanceof BigInteger) {
-                    BigInteger bigInt = (BigInteger) lhs.getValue();
-                    return Environment.create(bigInt.multiply(requireType(BigInteger.class, rhs)));
-                } else if (lhs.getValue() instanceof BigDecimal) {
-                    BigDecimal bigDec = (BigDecimal) lhs.getValue();
-                    return Environment.create(bigDec.multiply(requireType(BigDecimal.class, rhs)));
-                } else {
-                    throw new RuntimeException("Invalid multiplication objects!");
-                }
-            } else if (Objects.equals(ast.getOperator(), "/")) {
-                lhs = visit(ast.getLeft());
-                rhs = visit(ast.getRight());
-                if (lhs.getValue() instanceof BigInteger) {
-                    if (requireType(BigInteger.class, rhs).compareTo(BigInteger.ZERO) == 0)
-                        throw new RuntimeException("Cannot divide by 0");
-
-                    BigInteger bigInt = (BigInteger) lhs.getValue();
-                    return Environment.create(bigInt.divide(requireType(BigInteger.class, rhs)));
-                } else if (lhs.getValue() instanceof BigDecimal) {
-                    if (requireType(BigDecimal.class, rhs).compareTo(BigDecimal.ZERO) == 0)
-                        throw new RuntimeException("Cannot divide by 0.0");
-
-                    BigDecimal bigDec = (BigDecimal) lhs.getValue();
-                    return Environment.create(bigDec.divide(requireType(BigDecimal.class, rhs), RoundingMode.HALF_EVEN));
-                } else {
-                    throw new RuntimeException("Invalid division objects!");
-                }
-            } else if (Objects.equals(ast.getOperator(), "^")) {
-                lhs = visit(ast.getLeft());
-                rhs = visit(ast.getRight());
-                if (lhs.getValue() instanceof BigInteger) {
-                    BigInteger power = BigInteger.ONE;
-                    for (BigInteger i = BigInteger.ZERO; i.compareTo(requireType(BigInteger.class, rhs)) < 0; i = i.add(BigInteger.ONE))
-                        power = power.multiply((BigInteger) lhs.getValue());
-
-                    if (requireType(BigInteger.class, rhs).compareTo(BigInteger.ZERO) < 0)
-                        power = BigInteger.ONE.divide(power);
-
-                    return Environment.create(power);
-                } else if (lhs.getValue() instanceof BigDecimal) {
-                    BigDecimal result = BigDecimal.ONE;
-                    for (BigInteger i = BigInteger.ZERO; i.compareTo(requireType(BigInteger.class, rhs)) < 0; i = i.add(BigInteger.ONE))
-                        result = result.multiply((BigDecimal) lhs.getValue());
-
-                    if (requireType(BigInteger.class, rhs).compareTo(BigInteger.ZERO) < 0)
-                        result = BigDecimal.ONE.divide(result, RoundingMode.HALF_EVEN);
-
-                    return Environment.create(result);
-                } else {
-                    throw new RuntimeException("Invalid division objects!");
-                }
-            }
-
-            visit(ast.getRight());
+        switch (ast.getOperator()) {
+            case "&&":
+                return Environment.create(Operators.requireType(Boolean.class, visit(ast.getLeft())) && Operators.requireType(Boolean.class, visit(ast.getRight())));
+            case "||":
+                return Environment.create(Operators.requireType(Boolean.class, visit(ast.getLeft())) || Operators.requireType(Boolean.class, visit(ast.getRight())));
         }
 
-        return Environment.NIL;
+        Environment.PlcObject left = visit(ast.getLeft());
+        Environment.PlcObject right = visit(ast.getRight());
+        switch (ast.getOperator()) {
+            case ">":
+                return Environment.create(Operators.compare(left, right) > 0);
+            case "<":
+                return Environment.create(Operators.compare(left, right) < 0);
+            case "==":
+                return Environment.create(Operators.compare(left, right) == 0);
+            case "!=":
+                return Environment.create(Operators.compare(left, right) != 0);
+            case "+":
+                return Operators.add(left, right, ast.isBounded());
+            case "-":
+                return Operators.subtract(left, right, ast.isBounded());
+            case "*":
+                return Operators.multiply(left, right, ast.isBounded());
+            case "/":
+                return Operators.divide(left, right);
+            case "^":
+                return Operators.power(left, right);
+            default:
+                return Environment.NIL;
+        }
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Expression.Access ast) {
         boolean present = ast.getOffset().isPresent();
         if (present) {
-            BigInteger offset = requireType(BigInteger.class, visit(ast.getOffset().get()));
-            List indices = requireType(List.class, scope.lookupVariable(ast.getName()).getValue());
-            if (offset.compareTo(BigInteger.ZERO) < 0 || offset.compareTo(BigInteger.valueOf(indices.size() - 1)) > 0)
-                throw new RuntimeException("Offset out of range!");
-
-            return Environment.create(indices.get(offset.intValue()));
+            Environment.PlcObject offset = visit(ast.getOffset().get());
+            return Operators.get(scope.lookupVariable(ast.getName()).getValue(), offset);
         } else {
             return (scope.lookupVariable(ast.getName())).getValue();
         }
@@ -356,28 +342,54 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         for (Ast.Expression arg : ast.getArguments())
             args.add(visit(arg));
 
-        return scope.lookupFunction(ast.getName(), ast.getArguments().size()).invoke(args);
+        return ast.getCallSite().lookup(scope, ast.getName(), ast.getArguments().size()).invoke(args);
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Expression.PlcList ast) {
-        List<Object> list = new java.util.ArrayList<>(Collections.emptyList());
+        List<Environment.PlcObject> values = new java.util.ArrayList<>(Collections.emptyList());
         for (Ast.Expression expression : ast.getValues())
-            list.add(visit(expression).getValue());
+            values.add(visit(expression));
 
-        return Environment.create(list);
+        Environment.Type type = Environment.Type.ANY;
+        try {
+            type = ast.getType();
+        } catch (IllegalStateException e) {
+            // not analyzed, so store the elements boxed
+        }
+        return Environment.create(PrimitiveList.of(type, values));
     }
 
     /**
-     * Exception class for returning values.
+     * Exception class for returning values. It is only used for control flow
+     * and is always caught by the enclosing function, so it skips capturing a
+     * stack trace, which would otherwise cost time proportional to the depth
+     * of the recursion on every return.
      */
     private static class Return extends RuntimeException {
 
         private final Environment.PlcObject value;
 
         private Return(Environment.PlcObject value) {
+            super(null, null, false, false);
             this.value = value;
         }
     }
+
+    /**
+     * Exception class for tail calls, restarting the enclosing function with
+     * new arguments. Like {@link Return}, it skips the stack trace.
+     */
+    private static class TailCall extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Environment.PlcObject> arguments;
+
+        private TailCall(List<Environment.PlcObject> arguments) {
+            super(null, null, false, false);
+            this.arguments = arguments;
+        }
+    }
 }
 
@@ -0,0 +1,166 @@
+package plc.project;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Runs programs by generating Java with the {@link Generator}, compiling it
+ * in memory with the system Java compiler and invoking the generated
+ * {@code main} method, so the JIT compiles scripts like any other Java code.
+ * <p>
+ * Sources the generator doesn't support, or that javac rejects, are run by
+ * the {@link Interpreter} instead, as are all sources when no compiler is
+ * available (such as on a JRE). {@link #getFallbackReason()} explains why
+ * the last run fell back.
+ */
+public final class JvmCompiler {
+
+    private final Scope parent;
+    private String fallbackReason = null;
+
+    public JvmCompiler(Scope parent) {
+        this.parent = parent;
+    }
+
+    public Optional<String> getFallbackReason() {
+        return Optional.ofNullable(fallbackReason);
+    }
+
+    /**
+     * Runs an analyzed source, returning the result of {@code main/0} like
+     * {@link Interpreter#visit(Ast.Source)}.
+     */
+    public Environment.PlcObject run(Ast.Source ast) {
+        Optional<Class<?>> program = compile(ast);
+        if (!program.isPresent()) {
+            return new Interpreter(parent).visit(ast);
+        }
+
+        try {
+            Object result = program.get().getMethod("main").invoke(null);
+            return result == null ? Environment.NIL : Environment.create(result);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Unable to invoke the compiled main/0.", e);
+        }
+    }
+
+    /**
+     * Generates and compiles the source into a new class, or returns an empty
+     * optional and records the reason if it can't be.
+     */
+    public Optional<Class<?>> compile(Ast.Source ast) {
+        fallbackReason = null;
+        StringWriter source = new StringWriter();
+        try {
+            new Generator(new PrintWriter(source)).visit(ast);
+        } catch (UnsupportedOperationException | IllegalStateException e) {
+            fallbackReason = "Unsupported source: " + e.getMessage();
+            return Optional.empty();
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            fallbackReason = "No Java compiler is available.";
+            return Optional.empty();
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        MemoryFileManager files = new MemoryFileManager(compiler.getStandardFileManager(diagnostics, null, null));
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + Generator.CLASS + ".java"), JavaFileObject.Kind.SOURCE) {
+
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source.toString();
+            }
+
+        };
+
+        if (!compiler.getTask(null, files, diagnostics, Collections.singletonList("-nowarn"), null, Collections.singletonList(file)).call()) {
+            StringBuilder reason = new StringBuilder("Unable to compile the generated source:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    reason.append(System.lineSeparator()).append(diagnostic.getLineNumber()).append(": ").append(diagnostic.getMessage(null));
+                }
+            }
+            fallbackReason = reason.toString();
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(new MemoryClassLoader(files.classes).loadClass(Generator.CLASS));
+        } catch (ClassNotFoundException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Keeps compiled classes in memory instead of writing class files.
+     */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+        private final Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+
+        private MemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + kind.extension), kind) {
+
+                @Override
+                public OutputStream openOutputStream() {
+                    return classes.computeIfAbsent(className, name -> new ByteArrayOutputStream());
+                }
+
+            };
+        }
+
+    }
+
+    private static final class MemoryClassLoader extends ClassLoader {
+
+        private final Map<String, ByteArrayOutputStream> classes;
+
+        private MemoryClassLoader(Map<String, ByteArrayOutputStream> classes) {
+            super(JvmCompiler.class.getClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            ByteArrayOutputStream bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            byte[] code = bytes.toByteArray();
+            return defineClass(name, code, 0, code.length);
+        }
+
+    }
+
+}
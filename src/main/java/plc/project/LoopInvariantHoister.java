@@ -0,0 +1,154 @@
+package plc.project;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Optimization pass that moves loop-invariant expressions out of
+ * {@code WHILE} loops. A binary expression is invariant if every variable it
+ * reads keeps its value for the whole loop: the variable is resolved by the
+ * {@link Analyzer}, isn't assigned or declared in the loop and, if it's a
+ * global, the loop doesn't call a function which may change it. Each such
+ * expression is computed once into a temporary declared before the loop.
+ * <p>
+ * The hoisted expression runs even if the loop body (or the branch it was
+ * in) never does, so it may only contain operations which can't fail. This
+ * excludes {@code /} (division by zero), {@code ^} (negative powers of zero)
+ * and reads of variables declared without a value, which may still be NIL.
+ * Function calls aren't hoisted for the same reason, as even a pure function
+ * may fail or not terminate.
+ */
+public final class LoopInvariantHoister extends Rewriter {
+
+    private Set<Environment.Variable> globals = null;
+    private Set<Environment.Variable> uninitialized = null;
+    private int hoisted = 0;
+
+    /**
+     * Returns the number of expressions moved out of loops so far.
+     */
+    public int getHoisted() {
+        return hoisted;
+    }
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        globals = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Ast.Global global : ast.getGlobals()) {
+            Environment.Variable variable = annotation(global::getVariable);
+            if (variable != null) {
+                globals.add(variable);
+            }
+        }
+        uninitialized = uninitialized(ast);
+
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.While ast) {
+        Ast.Statement.While loop = (Ast.Statement.While) super.visit(ast);
+
+        Set<Environment.Variable> variant = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean[] effects = {false};
+        walk(loop, node -> {
+            if (node instanceof Ast.Statement.Declaration) {
+                variant.add(annotation(((Ast.Statement.Declaration) node)::getVariable));
+            } else if (node instanceof Ast.Statement.Assignment && ((Ast.Statement.Assignment) node).getReceiver() instanceof Ast.Expression.Access) {
+                variant.add(annotation(((Ast.Expression.Access) ((Ast.Statement.Assignment) node).getReceiver())::getVariable));
+            } else if (node instanceof Ast.Expression.Function) {
+                Environment.Function function = annotation(((Ast.Expression.Function) node)::getFunction);
+                effects[0] |= function == null || function.getEffect() == Environment.Effect.EFFECTFUL;
+            }
+        });
+
+        Hoister hoister = new Hoister(variant, effects[0]);
+        Ast.Statement.While rewritten = new Ast.Statement.While(hoister.expression(loop.getCondition()), hoister.block(loop.getStatements()));
+        hoister.temporaries.forEach((expression, variable) -> {
+            Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(variable.getName(), Optional.empty(), Optional.of(expression));
+            declaration.setVariable(variable);
+            emit(declaration);
+        });
+        return rewritten;
+    }
+
+    /**
+     * Replaces the invariant expressions of a single loop with accesses to
+     * temporaries, reusing the temporary of an equal expression.
+     */
+    private final class Hoister extends Rewriter {
+
+        private final Set<Environment.Variable> variant;
+        private final boolean effects;
+        private final Map<Ast.Expression, Environment.Variable> temporaries = new LinkedHashMap<>();
+
+        private Hoister(Set<Environment.Variable> variant, boolean effects) {
+            this.variant = variant;
+            this.effects = effects;
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Group ast) {
+            return invariant(ast) && binary(ast) ? hoist(ast) : super.visit(ast);
+        }
+
+        @Override
+        public Ast visit(Ast.Expression.Binary ast) {
+            return invariant(ast) ? hoist(ast) : super.visit(ast);
+        }
+
+        private Ast.Expression.Access hoist(Ast.Expression ast) {
+            // the AST doesn't implement hashCode, so equal expressions are found by a scan
+            Environment.Variable variable = null;
+            for (Map.Entry<Ast.Expression, Environment.Variable> entry : temporaries.entrySet()) {
+                if (entry.getKey().equals(ast)) {
+                    variable = entry.getValue();
+                }
+            }
+            if (variable == null) {
+                String name = LoopInvariantHoister.this.fresh("$licm");
+                hoisted++;
+                variable = new Environment.Variable(name, name, annotation(ast::getType), true, Environment.NIL);
+                temporaries.put(ast, variable);
+            }
+
+            Ast.Expression.Access access = new Ast.Expression.Access(Optional.empty(), variable.getName());
+            access.setVariable(variable);
+            access.setBounded(ast.isBounded());
+            return access;
+        }
+
+        private boolean invariant(Ast.Expression ast) {
+            if (ast instanceof Ast.Expression.Literal) {
+                return true;
+            } else if (ast instanceof Ast.Expression.Group) {
+                return invariant(((Ast.Expression.Group) ast).getExpression());
+            } else if (ast instanceof Ast.Expression.Binary) {
+                Ast.Expression.Binary binary = (Ast.Expression.Binary) ast;
+                return annotation(binary::getType) != null
+                        && !binary.getOperator().equals("/") && !binary.getOperator().equals("^")
+                        && invariant(binary.getLeft()) && invariant(binary.getRight());
+            } else if (ast instanceof Ast.Expression.Access) {
+                Ast.Expression.Access access = (Ast.Expression.Access) ast;
+                Environment.Variable variable = annotation(access::getVariable);
+                return !access.getOffset().isPresent() && variable != null && !variant.contains(variable)
+                        && uninitialized != null && !uninitialized.contains(variable)
+                        && !(effects && (globals == null || globals.contains(variable)));
+            }
+            return false;
+        }
+
+        private boolean binary(Ast.Expression ast) {
+            if (ast instanceof Ast.Expression.Group) {
+                return binary(((Ast.Expression.Group) ast).getExpression());
+            }
+            return ast instanceof Ast.Expression.Binary;
+        }
+
+    }
+
+}
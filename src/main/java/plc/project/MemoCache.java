@@ -0,0 +1,89 @@
+package plc.project;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache from argument values to the result of a pure function,
+ * evicting the least recently used entry once it reaches its capacity. Hits
+ * and misses are counted so the effectiveness of memoizing a function can be
+ * measured.
+ */
+public final class MemoCache {
+
+    private final int capacity;
+    private final Map<List<Object>, Environment.PlcObject> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    public MemoCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, received " + capacity + ".");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<List<Object>, Environment.PlcObject>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Environment.PlcObject> eldest) {
+                return size() > MemoCache.this.capacity;
+            }
+
+        };
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the cached result for the given argument values, or {@code null}
+     * if there is none.
+     */
+    public synchronized Environment.PlcObject get(List<Object> arguments) {
+        Environment.PlcObject result = entries.get(arguments);
+        if (result != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return result;
+    }
+
+    public synchronized void put(List<Object> arguments, Environment.PlcObject result) {
+        entries.put(arguments, result);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "MemoCache{" +
+                "capacity=" + capacity +
+                ", size=" + entries.size() +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                '}';
+    }
+
+}
@@ -0,0 +1,272 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Runtime semantics of the language's operators, shared by every execution
+ * engine so they agree on results and errors. Operands are already evaluated;
+ * short circuiting {@code &&} and {@code ||} is left to the caller.
+ */
+final class Operators {
+
+    private Operators() {}
+
+    /**
+     * Helper function to ensure an object is of the appropriate type.
+     */
+    static <T> T requireType(Class<T> type, Environment.PlcObject object) {
+        if (type.isInstance(object.getValue())) {
+            return type.cast(object.getValue());
+        } else {
+            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compare(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return Long.compare(left.getLong(), right.getLong());
+        } else if (left.isDouble() && right.isDouble()) {
+            return Double.compare(left.getDouble(), right.getDouble());
+        }
+        return requireType(Comparable.class, left).compareTo(requireType(Comparable.class, right));
+    }
+
+    static Environment.PlcObject add(Environment.PlcObject lhs, Environment.PlcObject rhs, boolean bounded) {
+        if (lhs.isLong() && rhs.isLong()) {
+            return arithmetic(lhs.getLong(), rhs.getLong(), bounded, Long::sum, Math::addExact, BigInteger::add);
+        } else if (lhs.isDouble() && rhs.isDouble()) {
+            return Environment.createDecimal(lhs.getDouble() + rhs.getDouble());
+        } else if (lhs.getRope() != null) {
+            return Environment.create(lhs.getRope().append(rhs.getValue().toString()));
+        } else if (lhs.getValue() instanceof String || rhs.getValue() instanceof String) {
+            return Environment.create(Rope.of(lhs.getValue().toString()).append(rhs.getValue().toString()));
+        } else if (lhs.getValue() instanceof BigInteger) {
+            BigInteger bigInt = (BigInteger) lhs.getValue();
+            return Environment.create(arithmetic(bigInt, requireType(BigInteger.class, rhs), bounded, Long::sum, Math::addExact, BigInteger::add));
+        } else if (lhs.getValue() instanceof BigDecimal) {
+            BigDecimal bigDec = (BigDecimal) lhs.getValue();
+            return Environment.create(bigDec.add(requireType(BigDecimal.class, rhs)));
+        } else {
+            throw new RuntimeException("Invalid addition objects!");
+        }
+    }
+
+    static Environment.PlcObject subtract(Environment.PlcObject lhs, Environment.PlcObject rhs, boolean bounded) {
+        if (lhs.isLong() && rhs.isLong()) {
+            return arithmetic(lhs.getLong(), rhs.getLong(), bounded, (l, r) -> l - r, Math::subtractExact, BigInteger::subtract);
+        } else if (lhs.isDouble() && rhs.isDouble()) {
+            return Environment.createDecimal(lhs.getDouble() - rhs.getDouble());
+        } else if (lhs.getValue() instanceof BigInteger) {
+            BigInteger bigInt = (BigInteger) lhs.getValue();
+            return Environment.create(arithmetic(bigInt, requireType(BigInteger.class, rhs), bounded, (l, r) -> l - r, Math::subtractExact, BigInteger::subtract));
+        } else if (lhs.getValue() instanceof BigDecimal) {
+            BigDecimal bigDec = (BigDecimal) lhs.getValue();
+            return Environment.create(bigDec.subtract(requireType(BigDecimal.class, rhs)));
+        } else {
+            throw new RuntimeException("Invalid subtraction objects!");
+        }
+    }
+
+    static Environment.PlcObject multiply(Environment.PlcObject lhs, Environment.PlcObject rhs, boolean bounded) {
+        if (lhs.isLong() && rhs.isLong()) {
+            return arithmetic(lhs.getLong(), rhs.getLong(), bounded, (l, r) -> l * r, Math::multiplyExact, BigInteger::multiply);
+        } else if (lhs.isDouble() && rhs.isDouble()) {
+            return Environment.createDecimal(lhs.getDouble() * rhs.getDouble());
+        } else if (lhs.getValue() instanceof BigInteger) {
+            BigInteger bigInt = (BigInteger) lhs.getValue();
+            return Environment.create(arithmetic(bigInt, requireType(BigInteger.class, rhs), bounded, (l, r) -> l * r, Math::multiplyExact, BigInteger::multiply));
+        } else if (lhs.getValue() instanceof BigDecimal) {
+            BigDecimal bigDec = (BigDecimal) lhs.getValue();
+            return Environment.create(bigDec.multiply(requireType(BigDecimal.class, rhs)));
+        } else {
+            throw new RuntimeException("Invalid multiplication objects!");
+        }
+    }
+
+    static Environment.PlcObject divide(Environment.PlcObject lhs, Environment.PlcObject rhs) {
+        if (lhs.isLong() && rhs.isLong() && !(lhs.getLong() == Long.MIN_VALUE && rhs.getLong() == -1)) {
+            if (rhs.getLong() == 0)
+                throw new RuntimeException("Cannot divide by 0");
+
+            // truncates toward zero like BigInteger.divide
+            return Environment.createInteger(lhs.getLong() / rhs.getLong());
+        } else if (lhs.isDouble() && rhs.isDouble()) {
+            if (rhs.getDouble() == 0.0)
+                throw new RuntimeException("Cannot divide by 0.0");
+
+            return Environment.createDecimal(lhs.getDouble() / rhs.getDouble());
+        } else if (lhs.getValue() instanceof BigInteger) {
+            if (requireType(BigInteger.class, rhs).compareTo(BigInteger.ZERO) == 0)
+                throw new RuntimeException("Cannot divide by 0");
+
+            BigInteger bigInt = (BigInteger) lhs.getValue();
+            return Environment.create(bigInt.divide(requireType(BigInteger.class, rhs)));
+        } else if (lhs.getValue() instanceof BigDecimal) {
+            if (requireType(BigDecimal.class, rhs).compareTo(BigDecimal.ZERO) == 0)
+                throw new RuntimeException("Cannot divide by 0.0");
+
+            BigDecimal bigDec = (BigDecimal) lhs.getValue();
+            return Environment.create(bigDec.divide(requireType(BigDecimal.class, rhs), RoundingMode.HALF_EVEN));
+        } else {
+            throw new RuntimeException("Invalid division objects!");
+        }
+    }
+
+    /**
+     * Raises the left operand to an INTEGER exponent by repeated squaring.
+     * Negative exponents take the reciprocal, truncated to an INTEGER for
+     * INTEGER bases and rounded to {@link MathContext#DECIMAL128} for
+     * DECIMAL ones.
+     */
+    static Environment.PlcObject power(Environment.PlcObject lhs, Environment.PlcObject rhs) {
+        if (lhs.isLong() && rhs.isLong() && rhs.getLong() >= 0) {
+            return power(lhs.getLong(), rhs.getLong());
+        } else if (lhs.isDouble()) {
+            double exponent = requireType(BigInteger.class, rhs).doubleValue();
+            if (lhs.getDouble() == 0.0 && exponent < 0)
+                throw new RuntimeException("Cannot divide by 0.0");
+
+            return Environment.createDecimal(Math.pow(lhs.getDouble(), exponent));
+        } else if (lhs.getValue() instanceof BigInteger) {
+            BigInteger base = (BigInteger) lhs.getValue();
+            BigInteger exponent = requireType(BigInteger.class, rhs);
+            if (exponent.signum() < 0) {
+                if (base.signum() == 0)
+                    throw new RuntimeException("Cannot divide by 0");
+
+                // only 1 and -1 have reciprocals that don't truncate to 0
+                return Environment.create(base.abs().equals(BigInteger.ONE) ? (exponent.testBit(0) ? base : BigInteger.ONE) : BigInteger.ZERO);
+            } else if (base.abs().compareTo(BigInteger.ONE) <= 0) {
+                // 0, 1 and -1 stay small for any exponent, however large
+                return Environment.create(exponent.signum() == 0 || (base.signum() < 0 && !exponent.testBit(0)) ? BigInteger.ONE : base);
+            }
+            return Environment.create(base.pow(exponent(exponent)));
+        } else if (lhs.getValue() instanceof BigDecimal) {
+            BigDecimal base = (BigDecimal) lhs.getValue();
+            int exponent = exponent(requireType(BigInteger.class, rhs));
+            if (exponent >= 0) {
+                return Environment.create(base.pow(exponent));
+            } else if (base.signum() == 0) {
+                throw new RuntimeException("Cannot divide by 0.0");
+            }
+            return Environment.create(base.pow(exponent, MathContext.DECIMAL128));
+        } else {
+            throw new RuntimeException("Invalid exponentiation objects!");
+        }
+    }
+
+    /**
+     * Helper function for INTEGER exponentiation on primitive operands,
+     * squaring in a long until it overflows and finishing with BigInteger.
+     */
+    private static Environment.PlcObject power(long base, long exponent) {
+        long result = 1;
+        long square = base;
+        long remaining = exponent;
+        try {
+            while (remaining > 0) {
+                if ((remaining & 1) == 1) {
+                    result = Math.multiplyExact(result, square);
+                }
+                remaining >>= 1;
+                if (remaining > 0) {
+                    square = Math.multiplyExact(square, square);
+                }
+            }
+            return Environment.createInteger(result);
+        } catch (ArithmeticException e) {
+            return Environment.create(BigInteger.valueOf(base).pow(exponent(BigInteger.valueOf(exponent))));
+        }
+    }
+
+    private static int exponent(BigInteger exponent) {
+        if (exponent.bitLength() >= Integer.SIZE)
+            throw new RuntimeException("Exponent " + exponent + " is too large!");
+
+        return exponent.intValue();
+    }
+
+    /**
+     * Returns the element of a list at the given offset.
+     */
+    static Environment.PlcObject get(Environment.PlcObject list, Environment.PlcObject offset) {
+        List<?> indices = requireType(List.class, list);
+        int index = index(indices, offset);
+        if (indices instanceof PrimitiveList) {
+            return ((PrimitiveList) indices).getValue(index);
+        }
+        return Environment.create(indices.get(index));
+    }
+
+    /**
+     * Replaces the element of a list at the given offset.
+     */
+    @SuppressWarnings("unchecked")
+    static void set(Environment.PlcObject list, Environment.PlcObject offset, Environment.PlcObject value) {
+        List<Object> vars = requireType(List.class, list);
+        int index = index(vars, offset);
+        if (vars instanceof PrimitiveList) {
+            ((PrimitiveList) vars).setValue(index, value);
+        } else {
+            vars.set(index, value.getValue());
+        }
+    }
+
+    private static int index(List<?> list, Environment.PlcObject offset) {
+        if (offset.isLong()) {
+            if (offset.getLong() < 0 || offset.getLong() > list.size() - 1)
+                throw new RuntimeException("Offset out of range!");
+
+            return (int) offset.getLong();
+        }
+
+        BigInteger index = requireType(BigInteger.class, offset);
+        if (index.compareTo(BigInteger.ZERO) < 0 || index.compareTo(BigInteger.valueOf(list.size() - 1)) > 0)
+            throw new RuntimeException("Offset out of range!");
+
+        return index.intValue();
+    }
+
+    /**
+     * Helper function for INTEGER arithmetic on primitive operands, checking
+     * for overflow unless the analyzer proved the expression bounded and
+     * promoting the result to a BigInteger if it overflows.
+     */
+    private static Environment.PlcObject arithmetic(long left, long right, boolean bounded, LongBinaryOperator primitive, LongBinaryOperator exact, BinaryOperator<BigInteger> fallback) {
+        if (bounded) {
+            return Environment.createInteger(primitive.applyAsLong(left, right));
+        }
+        try {
+            return Environment.createInteger(exact.applyAsLong(left, right));
+        } catch (ArithmeticException e) {
+            return Environment.create(fallback.apply(BigInteger.valueOf(left), BigInteger.valueOf(right)));
+        }
+    }
+
+    /**
+     * Helper function for INTEGER arithmetic with a primitive fast path. The
+     * analyzer proves bounded expressions fit in a long, so they skip overflow
+     * checks entirely; otherwise operands that fit in a long use the checked
+     * operation and only fall back to BigInteger when it overflows.
+     */
+    private static BigInteger arithmetic(BigInteger left, BigInteger right, boolean bounded, LongBinaryOperator primitive, LongBinaryOperator exact, BinaryOperator<BigInteger> fallback) {
+        if (bounded) {
+            return BigInteger.valueOf(primitive.applyAsLong(left.longValue(), right.longValue()));
+        } else if (left.bitLength() < Long.SIZE && right.bitLength() < Long.SIZE) {
+            try {
+                return BigInteger.valueOf(exact.applyAsLong(left.longValue(), right.longValue()));
+            } catch (ArithmeticException e) {
+                // overflowed a long, use BigInteger below
+            }
+        }
+        return fallback.apply(left, right);
+    }
+
+}
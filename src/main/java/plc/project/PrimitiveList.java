@@ -0,0 +1,235 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A fixed size list value storing its elements in a primitive array, which
+ * saves boxing every element of numeric lists. Elements are boxed when read
+ * through the {@link List} interface, while {@link #getValue(int)} and
+ * {@link #setValue(int, Environment.PlcObject)} move them in and out of
+ * primitive-backed runtime values directly.
+ * <p>
+ * Storing an element the array can't hold, such as an INTEGER overflowing a
+ * long, moves every element to boxed storage for the rest of the list's life.
+ */
+abstract class PrimitiveList extends AbstractList<Object> implements RandomAccess {
+
+    private final int size;
+    private Object[] objects = null;
+
+    private PrimitiveList(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Returns a list of the values, using primitive storage if the declared
+     * element type has one and every value fits it. DECIMAL values are only
+     * stored as doubles if they already are (see
+     * {@link Interpreter#setDoubleDecimals(boolean)}).
+     */
+    static List<Object> of(Environment.Type type, List<Environment.PlcObject> values) {
+        if (type == Environment.Type.INTEGER && values.stream().allMatch(Environment.PlcObject::isLong)) {
+            long[] elements = new long[values.size()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = values.get(i).getLong();
+            }
+            return new Longs(elements);
+        } else if (type == Environment.Type.DECIMAL && !values.isEmpty() && values.stream().allMatch(Environment.PlcObject::isDouble)) {
+            double[] elements = new double[values.size()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = values.get(i).getDouble();
+            }
+            return new Doubles(elements);
+        } else if (type == Environment.Type.CHARACTER && values.stream().allMatch(value -> value.getValue() instanceof Character)) {
+            char[] elements = new char[values.size()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = (Character) values.get(i).getValue();
+            }
+            return new Chars(elements);
+        }
+
+        List<Object> list = new ArrayList<>(values.size());
+        for (Environment.PlcObject value : values) {
+            list.add(value.getValue());
+        }
+        return list;
+    }
+
+    @Override
+    public final int size() {
+        return size;
+    }
+
+    @Override
+    public final Object get(int index) {
+        Objects.checkIndex(index, size);
+        return objects != null ? objects[index] : box(index);
+    }
+
+    @Override
+    public final Object set(int index, Object element) {
+        Object previous = get(index);
+        if (objects != null || !store(index, element)) {
+            promote();
+            objects[index] = element;
+        }
+        return previous;
+    }
+
+    final Environment.PlcObject getValue(int index) {
+        Objects.checkIndex(index, size);
+        return objects != null ? Environment.create(objects[index]) : wrap(index);
+    }
+
+    final void setValue(int index, Environment.PlcObject value) {
+        Objects.checkIndex(index, size);
+        if (objects != null || !store(index, value)) {
+            promote();
+            objects[index] = value.getValue();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the elements are still in primitive storage.
+     */
+    final boolean isPrimitive() {
+        return objects == null;
+    }
+
+    abstract Object box(int index);
+
+    abstract Environment.PlcObject wrap(int index);
+
+    /**
+     * Stores the element in the array, returning {@code false} if it can't.
+     */
+    abstract boolean store(int index, Object element);
+
+    abstract boolean store(int index, Environment.PlcObject value);
+
+    private void promote() {
+        if (objects == null) {
+            Object[] boxed = new Object[size];
+            for (int i = 0; i < size; i++) {
+                boxed[i] = box(i);
+            }
+            objects = boxed;
+        }
+    }
+
+    private static final class Longs extends PrimitiveList {
+
+        private final long[] elements;
+
+        private Longs(long[] elements) {
+            super(elements.length);
+            this.elements = elements;
+        }
+
+        @Override
+        Object box(int index) {
+            return BigInteger.valueOf(elements[index]);
+        }
+
+        @Override
+        Environment.PlcObject wrap(int index) {
+            return Environment.createInteger(elements[index]);
+        }
+
+        @Override
+        boolean store(int index, Object element) {
+            if (element instanceof BigInteger && ((BigInteger) element).bitLength() < Long.SIZE) {
+                elements[index] = ((BigInteger) element).longValue();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        boolean store(int index, Environment.PlcObject value) {
+            if (value.isLong()) {
+                elements[index] = value.getLong();
+                return true;
+            }
+            return store(index, value.getValue());
+        }
+
+    }
+
+    private static final class Doubles extends PrimitiveList {
+
+        private final double[] elements;
+
+        private Doubles(double[] elements) {
+            super(elements.length);
+            this.elements = elements;
+        }
+
+        @Override
+        Object box(int index) {
+            return BigDecimal.valueOf(elements[index]);
+        }
+
+        @Override
+        Environment.PlcObject wrap(int index) {
+            return Environment.createDecimal(elements[index]);
+        }
+
+        @Override
+        boolean store(int index, Object element) {
+            return false;
+        }
+
+        @Override
+        boolean store(int index, Environment.PlcObject value) {
+            if (value.isDouble()) {
+                elements[index] = value.getDouble();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    private static final class Chars extends PrimitiveList {
+
+        private final char[] elements;
+
+        private Chars(char[] elements) {
+            super(elements.length);
+            this.elements = elements;
+        }
+
+        @Override
+        Object box(int index) {
+            return elements[index];
+        }
+
+        @Override
+        Environment.PlcObject wrap(int index) {
+            return Environment.create(elements[index]);
+        }
+
+        @Override
+        boolean store(int index, Object element) {
+            if (element instanceof Character) {
+                elements[index] = (Character) element;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        boolean store(int index, Environment.PlcObject value) {
+            return store(index, value.getValue());
+        }
+
+    }
+
+}
@@ -0,0 +1,457 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Base class for optimization passes that run over the AST after the
+ * {@link Analyzer}. Every visit method returns a rebuilt copy of the node,
+ * carrying over the types, variables and functions set by the analyzer, so a
+ * pass only overrides the nodes it actually transforms.
+ * <p>
+ * Statement lists are rewritten through {@link #block(List)}. A statement
+ * visit may return {@code null} to remove the statement, and may queue extra
+ * statements with {@link #emit(Ast.Statement)} which are placed immediately
+ * before it in the enclosing block. Temporaries introduced by a pass are
+ * named with {@link #fresh(String)}.
+ */
+public abstract class Rewriter implements Ast.Visitor<Ast> {
+
+    private List<Ast.Statement> pending = new ArrayList<>();
+    private Set<String> names = null;
+    protected int removed = 0;
+
+    /**
+     * Returns the number of AST nodes removed by this pass so far.
+     */
+    public int getRemoved() {
+        return removed;
+    }
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        List<Ast.Global> globals = new ArrayList<>();
+        for (Ast.Global global : ast.getGlobals()) {
+            globals.add((Ast.Global) visit(global));
+        }
+
+        List<Ast.Function> functions = new ArrayList<>();
+        for (Ast.Function function : ast.getFunctions()) {
+            Ast.Function rewritten = (Ast.Function) visit(function);
+            if (rewritten != null) {
+                functions.add(rewritten);
+            }
+        }
+
+        return new Ast.Source(globals, functions);
+    }
+
+    @Override
+    public Ast visit(Ast.Global ast) {
+        Ast.Global global = new Ast.Global(ast.getName(), ast.getTypeName(), ast.getMutable(), ast.getValue().map(this::expression));
+        global.setVariable(annotation(ast::getVariable));
+        return global;
+    }
+
+    @Override
+    public Ast visit(Ast.Function ast) {
+        Set<String> saved = names;
+        names = new HashSet<>(ast.getParameters());
+        walk(ast, node -> {
+            if (node instanceof Ast.Statement.Declaration) {
+                names.add(((Ast.Statement.Declaration) node).getName());
+            }
+        });
+
+        try {
+            Ast.Function function = new Ast.Function(ast.getName(), ast.getParameters(), ast.getParameterTypeNames(), ast.getReturnTypeName(), block(ast.getStatements()));
+            function.setFunction(annotation(ast::getFunction));
+            return function;
+        } finally {
+            names = saved;
+        }
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Expression ast) {
+        return new Ast.Statement.Expression(expression(ast.getExpression()));
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Declaration ast) {
+        Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(ast.getName(), ast.getTypeName(), ast.getValue().map(this::expression));
+        declaration.setVariable(annotation(ast::getVariable));
+        return declaration;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Assignment ast) {
+        Ast.Expression receiver = ast.getReceiver();
+        if (receiver instanceof Ast.Expression.Access) {
+            receiver = receiver((Ast.Expression.Access) receiver);
+        }
+
+        return new Ast.Statement.Assignment(receiver, expression(ast.getValue()));
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.If ast) {
+        return new Ast.Statement.If(expression(ast.getCondition()), block(ast.getThenStatements()), block(ast.getElseStatements()));
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Switch ast) {
+        Ast.Expression condition = expression(ast.getCondition());
+        List<Ast.Statement.Case> cases = new ArrayList<>();
+        for (Ast.Statement.Case current : ast.getCases()) {
+            cases.add((Ast.Statement.Case) visit(current));
+        }
+
+        Ast.Statement.Switch statement = new Ast.Statement.Switch(condition, cases);
+        if (annotation(ast.getCondition()::getType) != null) {
+            statement.setJumpTable(jumpTable(cases));
+        }
+        return statement;
+    }
+
+    /**
+     * Rebuilds the jump table of an analyzed switch from its rewritten cases
+     * like the {@link Analyzer}, since a pass may have changed their values.
+     */
+    private static Map<Object, Integer> jumpTable(List<Ast.Statement.Case> cases) {
+        Map<Object, Integer> table = new HashMap<>();
+        for (int i = 0; i < cases.size() - 1; i++) {
+            Ast.Expression value = cases.get(i).getValue().orElse(null);
+            if (!(value instanceof Ast.Expression.Literal) || ((Ast.Expression.Literal) value).getLiteral() == null) {
+                return null;
+            }
+            table.putIfAbsent(((Ast.Expression.Literal) value).getLiteral(), i);
+        }
+        return table;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Case ast) {
+        return new Ast.Statement.Case(ast.getValue().map(this::expression), block(ast.getStatements()));
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.While ast) {
+        return new Ast.Statement.While(expression(ast.getCondition()), block(ast.getStatements()));
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Return ast) {
+        Ast.Statement.Return statement = new Ast.Statement.Return(expression(ast.getValue()));
+        statement.setTailCall(ast.isTailCall() && statement.getValue() instanceof Ast.Expression.Function);
+        return statement;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Literal ast) {
+        Ast.Expression.Literal literal = new Ast.Expression.Literal(ast.getLiteral());
+        literal.setType(annotation(ast::getType));
+        literal.setBounded(ast.isBounded());
+        return literal;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Group ast) {
+        Ast.Expression.Group group = new Ast.Expression.Group(expression(ast.getExpression()));
+        group.setType(annotation(ast::getType));
+        group.setBounded(ast.isBounded());
+        return group;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Binary ast) {
+        Ast.Expression.Binary binary = new Ast.Expression.Binary(ast.getOperator(), expression(ast.getLeft()), expression(ast.getRight()));
+        binary.setType(annotation(ast::getType));
+        binary.setBounded(ast.isBounded());
+        return binary;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Access ast) {
+        return receiver(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Function ast) {
+        List<Ast.Expression> arguments = new ArrayList<>();
+        for (Ast.Expression argument : ast.getArguments()) {
+            arguments.add(expression(argument));
+        }
+
+        Ast.Expression.Function function = new Ast.Expression.Function(ast.getName(), arguments);
+        function.setFunction(annotation(ast::getFunction));
+        return function;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.PlcList ast) {
+        List<Ast.Expression> values = new ArrayList<>();
+        for (Ast.Expression value : ast.getValues()) {
+            values.add(expression(value));
+        }
+
+        Ast.Expression.PlcList list = new Ast.Expression.PlcList(values);
+        list.setType(annotation(ast::getType));
+        return list;
+    }
+
+    /**
+     * Rewrites a statement list, dropping removed statements and splicing in
+     * any statements emitted while rewriting each one.
+     */
+    protected List<Ast.Statement> block(List<Ast.Statement> statements) {
+        List<Ast.Statement> saved = pending;
+        List<Ast.Statement> result = new ArrayList<>();
+        try {
+            for (Ast.Statement statement : statements) {
+                pending = new ArrayList<>();
+                Ast.Statement rewritten = (Ast.Statement) visit(statement);
+                result.addAll(pending);
+                if (rewritten != null) {
+                    result.add(rewritten);
+                }
+            }
+        } finally {
+            pending = saved;
+        }
+
+        return result;
+    }
+
+    /**
+     * Queues a statement to be placed before the statement currently being
+     * rewritten by {@link #block(List)}.
+     */
+    protected void emit(Ast.Statement statement) {
+        pending.add(statement);
+    }
+
+    /**
+     * Returns a new name for a temporary in the function being rewritten,
+     * made of the prefix and the lowest number not yet declared in the
+     * function, either on its own or followed by {@code _} and another name.
+     * Prefixes start with a {@code $}, which the lexer doesn't allow in
+     * identifiers, so temporaries can't clash with variables in the source,
+     * and since declared names are checked the pass can safely run again on
+     * its own output.
+     */
+    protected String fresh(String prefix) {
+        for (int i = 0; ; i++) {
+            String name = prefix + i;
+            if (!names.contains(name) && names.stream().noneMatch(declared -> declared.startsWith(name + "_"))) {
+                names.add(name);
+                return name;
+            }
+        }
+    }
+
+    /**
+     * Returns the parameters and locals declared in the function being
+     * rewritten, including temporaries named by {@link #fresh(String)}, or
+     * {@code null} outside of a function.
+     */
+    protected Set<String> names() {
+        return names == null ? null : Collections.unmodifiableSet(names);
+    }
+
+    protected Ast.Expression expression(Ast.Expression ast) {
+        return (Ast.Expression) visit(ast);
+    }
+
+    /**
+     * Rebuilds an access, only rewriting the offset. Used for assignment
+     * receivers, which must stay accesses regardless of what a pass does to
+     * ordinary reads.
+     */
+    protected Ast.Expression.Access receiver(Ast.Expression.Access ast) {
+        Ast.Expression.Access access = new Ast.Expression.Access(ast.getOffset().map(this::expression), ast.getName());
+        access.setVariable(annotation(ast::getVariable));
+        access.setBounded(ast.isBounded());
+        return access;
+    }
+
+    /**
+     * Returns an analyzer annotation, or {@code null} if the node was never
+     * analyzed so passes also work on (and preserve) unanalyzed trees.
+     */
+    protected static <T> T annotation(Supplier<T> getter) {
+        try {
+            return getter.get();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calls the consumer on every node in the given tree, parents before their
+     * children and in evaluation order.
+     */
+    protected static void walk(Ast ast, Consumer<Ast> consumer) {
+        new Walker(consumer).visit(ast);
+    }
+
+    /**
+     * Returns the variables declared without a value in the given tree. These
+     * read as NIL until they are assigned, so operators on them may fail,
+     * while parameters and variables declared with a value always hold a
+     * value of their type.
+     */
+    protected static Set<Environment.Variable> uninitialized(Ast ast) {
+        Set<Environment.Variable> variables = Collections.newSetFromMap(new IdentityHashMap<>());
+        walk(ast, node -> {
+            if (node instanceof Ast.Global && !((Ast.Global) node).getValue().isPresent()) {
+                variables.add(annotation(((Ast.Global) node)::getVariable));
+            } else if (node instanceof Ast.Statement.Declaration && !((Ast.Statement.Declaration) node).getValue().isPresent()) {
+                variables.add(annotation(((Ast.Statement.Declaration) node)::getVariable));
+            }
+        });
+        return variables;
+    }
+
+    /**
+     * Returns the number of nodes in the given tree.
+     */
+    public static int size(Ast ast) {
+        int[] size = {0};
+        walk(ast, node -> size[0]++);
+        return size[0];
+    }
+
+    private static final class Walker implements Ast.Visitor<Void> {
+
+        private final Consumer<Ast> consumer;
+
+        private Walker(Consumer<Ast> consumer) {
+            this.consumer = consumer;
+        }
+
+        private Void walk(Ast ast, List<? extends Ast> children) {
+            consumer.accept(ast);
+            for (Ast child : children) {
+                visit(child);
+            }
+            return null;
+        }
+
+        private Void walk(Ast ast, Optional<? extends Ast> child, List<? extends Ast> children) {
+            consumer.accept(ast);
+            child.ifPresent(this::visit);
+            for (Ast next : children) {
+                visit(next);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Source ast) {
+            consumer.accept(ast);
+            ast.getGlobals().forEach(this::visit);
+            ast.getFunctions().forEach(this::visit);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Global ast) {
+            return walk(ast, ast.getValue(), Collections.emptyList());
+        }
+
+        @Override
+        public Void visit(Ast.Function ast) {
+            return walk(ast, ast.getStatements());
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Expression ast) {
+            return walk(ast, Collections.singletonList(ast.getExpression()));
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Declaration ast) {
+            return walk(ast, ast.getValue(), Collections.emptyList());
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Assignment ast) {
+            return walk(ast, Arrays.asList(ast.getReceiver(), ast.getValue()));
+        }
+
+        @Override
+        public Void visit(Ast.Statement.If ast) {
+            walk(ast, Collections.singletonList(ast.getCondition()));
+            ast.getThenStatements().forEach(this::visit);
+            ast.getElseStatements().forEach(this::visit);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Switch ast) {
+            walk(ast, Collections.singletonList(ast.getCondition()));
+            ast.getCases().forEach(this::visit);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Case ast) {
+            return walk(ast, ast.getValue(), ast.getStatements());
+        }
+
+        @Override
+        public Void visit(Ast.Statement.While ast) {
+            walk(ast, Collections.singletonList(ast.getCondition()));
+            ast.getStatements().forEach(this::visit);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Statement.Return ast) {
+            return walk(ast, Collections.singletonList(ast.getValue()));
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Literal ast) {
+            return walk(ast, Collections.emptyList());
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Group ast) {
+            return walk(ast, Collections.singletonList(ast.getExpression()));
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Binary ast) {
+            return walk(ast, Arrays.asList(ast.getLeft(), ast.getRight()));
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Access ast) {
+            return walk(ast, ast.getOffset(), Collections.emptyList());
+        }
+
+        @Override
+        public Void visit(Ast.Expression.Function ast) {
+            return walk(ast, ast.getArguments());
+        }
+
+        @Override
+        public Void visit(Ast.Expression.PlcList ast) {
+            return walk(ast, ast.getValues());
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package plc.project;
+
+/**
+ * A STRING built by concatenation, which is only flattened into a
+ * {@link String} once its value is needed. Concatenations share one
+ * {@link StringBuilder}: appending to the most recent string built with it
+ * appends in place, so accumulating a string in a loop takes linear time,
+ * and appending to an older one copies it first.
+ */
+final class Rope {
+
+    private final StringBuilder builder;
+    private final int length;
+    private String flat = null;
+
+    private Rope(StringBuilder builder, int length) {
+        this.builder = builder;
+        this.length = length;
+    }
+
+    static Rope of(String string) {
+        return new Rope(new StringBuilder(string), string.length());
+    }
+
+    int length() {
+        return length;
+    }
+
+    Rope append(String string) {
+        synchronized (builder) {
+            if (builder.length() == length) {
+                builder.append(string);
+                return new Rope(builder, builder.length());
+            }
+        }
+        StringBuilder copy = new StringBuilder(Math.max(16, 2 * (length + string.length())));
+        synchronized (builder) {
+            copy.append(builder, 0, length);
+        }
+        copy.append(string);
+        return new Rope(copy, copy.length());
+    }
+
+    @Override
+    public String toString() {
+        String flat = this.flat;
+        if (flat == null) {
+            synchronized (builder) {
+                flat = builder.substring(0, length);
+            }
+            this.flat = flat;
+        }
+        return flat;
+    }
+
+}
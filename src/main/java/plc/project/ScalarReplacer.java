@@ -0,0 +1,126 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Optimization pass that replaces small local lists with one variable per
+ * element, so they are never allocated. A list declared with a list literal
+ * of at most {@code limit} values is replaced if it doesn't escape its
+ * function and is only indexed by literal offsets within its size.
+ * <p>
+ * The escape analysis is based on the variables resolved by the
+ * {@link Analyzer}: a list escapes if its variable is ever used without an
+ * offset, which covers returning it, passing it to a function, storing it in
+ * another variable (including a global) and replacing it, as every other use
+ * reads or writes a single element. Replaced elements become declarations
+ * named {@code $<name>_<index>}, which the {@link ClosureCompiler} places in
+ * frame slots like any other local, and which the {@link Generator} can
+ * compile even though it doesn't support lists.
+ */
+public final class ScalarReplacer extends Rewriter {
+
+    public static final int DEFAULT_LIMIT = 8;
+
+    private final int limit;
+    private final Map<Environment.Variable, List<Environment.Variable>> scalars = new IdentityHashMap<>();
+    private int replaced = 0;
+
+    public ScalarReplacer() {
+        this(DEFAULT_LIMIT);
+    }
+
+    /**
+     * Creates a pass replacing lists of at most {@code limit} values.
+     */
+    public ScalarReplacer(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the number of lists replaced so far.
+     */
+    public int getReplaced() {
+        return replaced;
+    }
+
+    @Override
+    public Ast visit(Ast.Function ast) {
+        Map<Environment.Variable, Integer> sizes = new IdentityHashMap<>();
+        walk(ast, node -> {
+            if (node instanceof Ast.Statement.Declaration && ((Ast.Statement.Declaration) node).getValue().orElse(null) instanceof Ast.Expression.PlcList) {
+                Environment.Variable variable = annotation(((Ast.Statement.Declaration) node)::getVariable);
+                int size = ((Ast.Expression.PlcList) ((Ast.Statement.Declaration) node).getValue().get()).getValues().size();
+                if (variable != null && size <= limit) {
+                    sizes.put(variable, size);
+                }
+            }
+        });
+        walk(ast, node -> {
+            if (node instanceof Ast.Expression.Access) {
+                Environment.Variable variable = annotation(((Ast.Expression.Access) node)::getVariable);
+                if (sizes.containsKey(variable) && index(((Ast.Expression.Access) node).getOffset(), sizes.get(variable)) < 0) {
+                    sizes.remove(variable);
+                }
+            }
+        });
+
+        sizes.keySet().forEach(variable -> scalars.put(variable, new ArrayList<>()));
+        return super.visit(ast);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Declaration ast) {
+        Environment.Variable list = annotation(ast::getVariable);
+        if (!scalars.containsKey(list)) {
+            return super.visit(ast);
+        }
+
+        List<Ast.Expression> values = ((Ast.Expression.PlcList) ast.getValue().get()).getValues();
+        for (int i = 0; i < values.size(); i++) {
+            String name = "$" + ast.getName() + "_" + i;
+            Environment.Variable variable = new Environment.Variable(name, name, list.getType(), true, Environment.NIL);
+            scalars.get(list).add(variable);
+
+            Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(name, Optional.empty(), Optional.of(expression(values.get(i))));
+            declaration.setVariable(variable);
+            emit(declaration);
+        }
+
+        replaced++;
+        return null;
+    }
+
+    @Override
+    protected Ast.Expression.Access receiver(Ast.Expression.Access ast) {
+        List<Environment.Variable> elements = scalars.get(annotation(ast::getVariable));
+        if (elements == null) {
+            return super.receiver(ast);
+        }
+
+        Environment.Variable variable = elements.get(index(ast.getOffset(), elements.size()));
+        Ast.Expression.Access access = new Ast.Expression.Access(Optional.empty(), variable.getName());
+        access.setVariable(variable);
+        access.setBounded(ast.isBounded());
+        return access;
+    }
+
+    /**
+     * Returns the index given by a literal offset, or -1 if the offset isn't
+     * a literal within the size.
+     */
+    private static int index(Optional<Ast.Expression> offset, int size) {
+        if (offset.isPresent() && offset.get() instanceof Ast.Expression.Literal && ((Ast.Expression.Literal) offset.get()).getLiteral() instanceof BigInteger) {
+            BigInteger index = (BigInteger) ((Ast.Expression.Literal) offset.get()).getLiteral();
+            if (index.signum() >= 0 && index.compareTo(BigInteger.valueOf(size)) < 0) {
+                return index.intValue();
+            }
+        }
+        return -1;
+    }
+
+}
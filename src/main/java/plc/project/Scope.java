@@ -1,6 +1,7 @@
 package plc.project;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,7 +11,8 @@ public final class Scope {
 
     private final Scope parent;
     private final Map<String, Environment.Variable> variables = new HashMap<>();
-    private final Map<String, Environment.Function> functions = new HashMap<>();
+    // functions by name, then indexed by arity, so lookups don't build keys
+    private final Map<String, Environment.Function[]> functions = new HashMap<>();
 
     public Scope(Scope parent) {
         this.parent = parent;
@@ -44,27 +46,34 @@ public final class Scope {
         }
     }
 
-    public void defineFunction(String name, int arity, Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
+    public Environment.Function defineFunction(String name, int arity, Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
         List<Environment.Type> parameterTypes = new ArrayList<>();
         for (int i = 0; i < arity; i++) {
             parameterTypes.add(Environment.Type.ANY);
         }
-        defineFunction(name, name, parameterTypes, Environment.Type.ANY, function);
+        return defineFunction(name, name, parameterTypes, Environment.Type.ANY, function);
     }
 
     public Environment.Function defineFunction(String name, String jvmName, List<Environment.Type> parameterTypes, Environment.Type returnType, java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
-        if (functions.containsKey(name + "/" + parameterTypes.size())) {
-            throw new RuntimeException("The function " + name + "/" + parameterTypes.size() + " is already defined in this scope.");
+        int arity = parameterTypes.size();
+        Environment.Function[] overloads = functions.get(name);
+        if (overloads != null && arity < overloads.length && overloads[arity] != null) {
+            throw new RuntimeException("The function " + name + "/" + arity + " is already defined in this scope.");
         } else {
+            if (overloads == null || arity >= overloads.length) {
+                overloads = overloads == null ? new Environment.Function[arity + 1] : Arrays.copyOf(overloads, arity + 1);
+                functions.put(name, overloads);
+            }
             Environment.Function func = new Environment.Function(name, jvmName, parameterTypes, returnType, function);
-            functions.put(func.getName() + "/" + func.getParameterTypes().size(), func);
+            overloads[arity] = func;
             return func;
         }
     }
 
     public Environment.Function lookupFunction(String name, int arity) {
-        if (functions.containsKey(name + "/" + arity)) {
-            return functions.get(name + "/" + arity);
+        Environment.Function function = lookupLocalFunction(name, arity);
+        if (function != null) {
+            return function;
         } else if (parent != null) {
             return parent.lookupFunction(name, arity);
         } else {
@@ -72,12 +81,58 @@ public final class Scope {
         }
     }
 
+    /**
+     * Returns the closest scope defining the function {@code name/arity}.
+     */
+    public Scope lookupFunctionScope(String name, int arity) {
+        if (lookupLocalFunction(name, arity) != null) {
+            return this;
+        } else if (parent != null) {
+            return parent.lookupFunctionScope(name, arity);
+        } else {
+            throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+        }
+    }
+
+    private Environment.Function lookupLocalFunction(String name, int arity) {
+        Environment.Function[] overloads = functions.get(name);
+        return overloads != null && arity < overloads.length ? overloads[arity] : null;
+    }
+
+    /**
+     * Returns {@code true} if the target is this scope or an ancestor, and no
+     * scope before it defines any functions, so a function found in the
+     * target is still the one visible here.
+     */
+    boolean reaches(Scope target) {
+        for (Scope current = this; current != null; current = current.parent) {
+            if (current == target) {
+                return true;
+            } else if (!current.functions.isEmpty()) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private List<String> functionKeys() {
+        List<String> keys = new ArrayList<>();
+        functions.forEach((name, overloads) -> {
+            for (int arity = 0; arity < overloads.length; arity++) {
+                if (overloads[arity] != null) {
+                    keys.add(name + "/" + arity);
+                }
+            }
+        });
+        return keys;
+    }
+
     @Override
     public String toString() {
         return "Scope{" +
                 "parent=" + parent +
                 ", variables=" + variables.keySet() +
-                ", functions=" + functions.keySet() +
+                ", functions=" + functionKeys() +
                 '}';
     }
 
@@ -0,0 +1,165 @@
+package plc.project;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Interpreter that starts every function interpreted and compiles the ones
+ * that turn out to be hot with the {@link ClosureCompiler}. Each function
+ * counts its invocations and the loop iterations (back edges) run directly
+ * in its body. Once the sum reaches the threshold, the function is compiled
+ * on the executor and swapped into its {@link Environment.Function}, so
+ * later calls run compiled while calls in progress finish interpreted.
+ * <p>
+ * Functions that fail to compile keep being interpreted, and
+ * {@link #getFallbackReason(String, int)} explains why.
+ */
+public class TieredInterpreter extends Interpreter {
+
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    private static final ExecutorService COMPILER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "plc-compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ClosureCompiler compiler;
+    private final int threshold;
+    private final Executor executor;
+    private final Map<String, Profile> profiles = new HashMap<>();
+    private Profile current = null;
+
+    public TieredInterpreter(Scope parent) {
+        this(parent, DEFAULT_THRESHOLD, COMPILER);
+    }
+
+    /**
+     * Creates an interpreter compiling functions once their invocations and
+     * back edges reach the threshold, on the given executor.
+     */
+    public TieredInterpreter(Scope parent, int threshold, Executor executor) {
+        super(parent);
+        this.compiler = new ClosureCompiler(getScope());
+        this.threshold = threshold;
+        this.executor = executor;
+    }
+
+    /**
+     * Also compiles hot functions with DECIMAL values as doubles, so
+     * switching to the compiled code doesn't change results.
+     */
+    @Override
+    public void setDoubleDecimals(boolean doubles) {
+        super.setDoubleDecimals(doubles);
+        synchronized (compiler) {
+            compiler.setDoubleDecimals(doubles);
+        }
+    }
+
+    /**
+     * Returns whether the function has been compiled and swapped in.
+     */
+    public boolean isCompiled(String name, int arity) {
+        Profile profile = profiles.get(name + "/" + arity);
+        return profile != null && profile.compiled;
+    }
+
+    /**
+     * Returns why the function failed to compile, if it did.
+     */
+    public Optional<String> getFallbackReason(String name, int arity) {
+        Profile profile = profiles.get(name + "/" + arity);
+        return Optional.ofNullable(profile == null ? null : profile.fallbackReason);
+    }
+
+    /**
+     * Returns how many times each function has been called so far, keyed by
+     * {@code name/arity}, as a profile for the {@link FunctionInliner}.
+     */
+    public Map<String, Integer> getCalls() {
+        Map<String, Integer> calls = new HashMap<>();
+        profiles.forEach((key, profile) -> calls.put(key, profile.calls));
+        return calls;
+    }
+
+    @Override
+    public Environment.PlcObject visit(Ast.Function ast) {
+        super.visit(ast);
+        Environment.Function function = getScope().lookupFunction(ast.getName(), ast.getParameters().size());
+        Profile profile = new Profile(ast, function);
+        profiles.put(ast.getName() + "/" + ast.getParameters().size(), profile);
+
+        java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> interpreted = function.getImplementation();
+        function.setImplementation(args -> {
+            profile.calls++;
+            profile.counter++;
+            profile(profile);
+            Profile caller = current;
+            current = profile;
+            try {
+                return interpreted.apply(args);
+            } finally {
+                current = caller;
+            }
+        });
+        return Environment.NIL;
+    }
+
+    @Override
+    protected void backEdge(Ast.Statement.While ast) {
+        if (current != null) {
+            current.counter++;
+            profile(current);
+        }
+    }
+
+    private void profile(Profile profile) {
+        if (profile.counter >= threshold && !profile.queued) {
+            profile.queued = true;
+            executor.execute(() -> compile(profile));
+        }
+    }
+
+    private void compile(Profile profile) {
+        java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> compiled;
+        try {
+            synchronized (compiler) {
+                compiled = compiler.compile(profile.ast);
+            }
+        } catch (Throwable e) {
+            // errors too, so a failed compile can't take down the compiler thread
+            profile.fallbackReason = e.toString();
+            return;
+        }
+        // the call counts are still reported to the inliner once compiled
+        profile.function.setImplementation(args -> {
+            profile.calls++;
+            return compiled.apply(args);
+        });
+        profile.compiled = true;
+    }
+
+    private static final class Profile {
+
+        private final Ast.Function ast;
+        private final Environment.Function function;
+        private int counter = 0;
+        private int calls = 0;
+        private boolean queued = false;
+        private volatile boolean compiled = false;
+        private volatile String fallbackReason = null;
+
+        private Profile(Ast.Function ast, Environment.Function function) {
+            this.ast = ast;
+            this.function = function;
+        }
+
+    }
+
+}
@@ -0,0 +1,206 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Executes programs compiled by {@link BytecodeCompiler} with a dispatch loop
+ * over each chunk's instructions, keeping the values of a call in a flat
+ * register array. Values are still {@link Environment.PlcObject}s, so compiled
+ * functions are defined in the scope like any other and can call, or be
+ * called by, functions from the environment.
+ */
+public final class VirtualMachine {
+
+    private final Scope scope;
+
+    public VirtualMachine(Scope parent) {
+        scope = new Scope(Interpreter.builtins(parent));
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Defines the globals and functions of the source and invokes
+     * {@code main/0}, like {@link Interpreter#visit(Ast.Source)}.
+     */
+    public Environment.PlcObject run(Ast.Source ast) {
+        BytecodeCompiler compiler = new BytecodeCompiler(scope);
+        for (Ast.Global global : ast.getGlobals()) {
+            Environment.PlcObject value = Environment.NIL;
+            if (global.getValue().isPresent()) {
+                value = invoke(compiler.compile(global.getValue().get()), Collections.emptyList());
+            } else if (!global.getMutable()) {
+                throw new RuntimeException("Immutable types must be initialized!");
+            }
+            scope.defineVariable(global.getName(), global.getMutable(), value);
+        }
+
+        for (Ast.Function function : ast.getFunctions()) {
+            Bytecode.Chunk chunk = compiler.declare(function);
+            Environment.Function defined = scope.defineFunction(function.getName(), function.getParameters().size(), args -> invoke(chunk, args));
+            try {
+                defined.setEffect(function.getFunction().getEffect());
+            } catch (IllegalStateException e) {
+                // not analyzed, so keep assuming the function has side effects
+            }
+        }
+        for (Ast.Function function : ast.getFunctions()) {
+            compiler.compile(function);
+        }
+
+        return scope.lookupFunction("main", 0).invoke(Collections.emptyList());
+    }
+
+    public Environment.PlcObject invoke(Bytecode.Chunk chunk, List<Environment.PlcObject> arguments) {
+        Environment.PlcObject[] registers = new Environment.PlcObject[chunk.registers];
+        for (int i = 0; i < chunk.getArity(); i++) {
+            registers[i] = arguments.get(i);
+        }
+        return execute(chunk, registers);
+    }
+
+    private Environment.PlcObject execute(Bytecode.Chunk chunk, Environment.PlcObject[] r) {
+        int[] code = chunk.code;
+        Object[] constants = chunk.constants;
+        int pc = 0;
+        while (true) {
+            switch (code[pc]) {
+                case Bytecode.CONST:
+                    r[code[pc + 1]] = (Environment.PlcObject) constants[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Bytecode.MOVE:
+                    r[code[pc + 1]] = r[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Bytecode.GET_GLOBAL:
+                    r[code[pc + 1]] = ((Environment.Variable) constants[code[pc + 2]]).getValue();
+                    pc += 3;
+                    break;
+                case Bytecode.SET_GLOBAL:
+                    ((Environment.Variable) constants[code[pc + 1]]).setValue(r[code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case Bytecode.GET_NAME:
+                    r[code[pc + 1]] = scope.lookupVariable((String) constants[code[pc + 2]]).getValue();
+                    pc += 3;
+                    break;
+                case Bytecode.SET_NAME: {
+                    Environment.Variable variable = scope.lookupVariable((String) constants[code[pc + 1]]);
+                    if (!variable.getMutable())
+                        throw new RuntimeException("Cannot modify immutable environment variable!");
+
+                    variable.setValue(r[code[pc + 2]]);
+                    pc += 3;
+                    break;
+                }
+                case Bytecode.ADD:
+                    r[code[pc + 1]] = Operators.add(r[code[pc + 2]], r[code[pc + 3]], code[pc + 4] != 0);
+                    pc += 5;
+                    break;
+                case Bytecode.SUB:
+                    r[code[pc + 1]] = Operators.subtract(r[code[pc + 2]], r[code[pc + 3]], code[pc + 4] != 0);
+                    pc += 5;
+                    break;
+                case Bytecode.MUL:
+                    r[code[pc + 1]] = Operators.multiply(r[code[pc + 2]], r[code[pc + 3]], code[pc + 4] != 0);
+                    pc += 5;
+                    break;
+                case Bytecode.DIV:
+                    r[code[pc + 1]] = Operators.divide(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Bytecode.POW:
+                    r[code[pc + 1]] = Operators.power(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Bytecode.LT:
+                    r[code[pc + 1]] = Environment.create(Operators.compare(r[code[pc + 2]], r[code[pc + 3]]) < 0);
+                    pc += 4;
+                    break;
+                case Bytecode.GT:
+                    r[code[pc + 1]] = Environment.create(Operators.compare(r[code[pc + 2]], r[code[pc + 3]]) > 0);
+                    pc += 4;
+                    break;
+                case Bytecode.EQ:
+                    r[code[pc + 1]] = Environment.create(Operators.compare(r[code[pc + 2]], r[code[pc + 3]]) == 0);
+                    pc += 4;
+                    break;
+                case Bytecode.NE:
+                    r[code[pc + 1]] = Environment.create(Operators.compare(r[code[pc + 2]], r[code[pc + 3]]) != 0);
+                    pc += 4;
+                    break;
+                case Bytecode.BOOLEAN:
+                    Operators.requireType(Boolean.class, r[code[pc + 1]]);
+                    pc += 2;
+                    break;
+                case Bytecode.COMPARABLE:
+                    Operators.requireType(Comparable.class, r[code[pc + 1]]);
+                    pc += 2;
+                    break;
+                case Bytecode.GET_INDEX:
+                    r[code[pc + 1]] = Operators.get(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Bytecode.SET_INDEX:
+                    Operators.set(r[code[pc + 1]], r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Bytecode.LIST: {
+                    List<Object> list = new ArrayList<>(code[pc + 3]);
+                    for (int i = 0; i < code[pc + 3]; i++) {
+                        list.add(r[code[pc + 2] + i].getValue());
+                    }
+                    r[code[pc + 1]] = Environment.create(list);
+                    pc += 4;
+                    break;
+                }
+                case Bytecode.CALL: {
+                    Object function = constants[code[pc + 2]];
+                    if (function instanceof Bytecode.Chunk) {
+                        Bytecode.Chunk callee = (Bytecode.Chunk) function;
+                        Environment.PlcObject[] frame = new Environment.PlcObject[callee.registers];
+                        System.arraycopy(r, code[pc + 3], frame, 0, code[pc + 4]);
+                        r[code[pc + 1]] = execute(callee, frame);
+                    } else {
+                        r[code[pc + 1]] = ((Environment.Function) function).invoke(arguments(r, code[pc + 3], code[pc + 4]));
+                    }
+                    pc += 5;
+                    break;
+                }
+                case Bytecode.CALL_NAME:
+                    r[code[pc + 1]] = scope.lookupFunction((String) constants[code[pc + 2]], code[pc + 4]).invoke(arguments(r, code[pc + 3], code[pc + 4]));
+                    pc += 5;
+                    break;
+                case Bytecode.JUMP:
+                    pc = code[pc + 1];
+                    break;
+                case Bytecode.JUMP_FALSE:
+                    pc = Operators.requireType(Boolean.class, r[code[pc + 1]]) ? pc + 3 : code[pc + 2];
+                    break;
+                case Bytecode.JUMP_TRUE:
+                    pc = Operators.requireType(Boolean.class, r[code[pc + 1]]) ? code[pc + 2] : pc + 3;
+                    break;
+                case Bytecode.JUMP_UNEQUAL:
+                    pc = Operators.requireType(Comparable.class, r[code[pc + 1]]).equals(Operators.requireType(Comparable.class, r[code[pc + 2]])) ? pc + 4 : code[pc + 3];
+                    break;
+                case Bytecode.RETURN:
+                    return r[code[pc + 1]];
+                case Bytecode.FAIL:
+                    throw new RuntimeException((String) constants[code[pc + 1]]);
+                default:
+                    throw new AssertionError("Invalid opcode " + code[pc] + " at " + pc + " in " + chunk.getName() + ".");
+            }
+        }
+    }
+
+    private static List<Environment.PlcObject> arguments(Environment.PlcObject[] registers, int first, int count) {
+        return Arrays.asList(Arrays.copyOfRange(registers, first, first + count));
+    }
+
+}
@@ -1,6 +1,7 @@
 package plc.project;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -9,6 +10,8 @@ import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -467,6 +470,44 @@ public final class AnalyzerTests {
                                 new Ast.Expression.Literal(BigDecimal.ONE)
                         ),
                         null
+                ),
+                Arguments.of("Integer Comparison",
+                        // 1 < 10
+                        new Ast.Expression.Binary("<",
+                                new Ast.Expression.Literal(BigInteger.ONE),
+                                new Ast.Expression.Literal(BigInteger.TEN)
+                        ),
+                        init(new Ast.Expression.Binary("<",
+                                init(new Ast.Expression.Literal(BigInteger.ONE), ast -> ast.setType(Environment.Type.INTEGER)),
+                                init(new Ast.Expression.Literal(BigInteger.TEN), ast -> ast.setType(Environment.Type.INTEGER))
+                        ), ast -> ast.setType(Environment.Type.BOOLEAN))
+                ),
+                Arguments.of("String Equality",
+                        // "a" == "b"
+                        new Ast.Expression.Binary("==",
+                                new Ast.Expression.Literal("a"),
+                                new Ast.Expression.Literal("b")
+                        ),
+                        init(new Ast.Expression.Binary("==",
+                                init(new Ast.Expression.Literal("a"), ast -> ast.setType(Environment.Type.STRING)),
+                                init(new Ast.Expression.Literal("b"), ast -> ast.setType(Environment.Type.STRING))
+                        ), ast -> ast.setType(Environment.Type.BOOLEAN))
+                ),
+                Arguments.of("Integer Decimal Comparison",
+                        // 1 < 1.0
+                        new Ast.Expression.Binary("<",
+                                new Ast.Expression.Literal(BigInteger.ONE),
+                                new Ast.Expression.Literal(BigDecimal.ONE)
+                        ),
+                        null
+                ),
+                Arguments.of("Boolean Comparison",
+                        // TRUE > FALSE
+                        new Ast.Expression.Binary(">",
+                                new Ast.Expression.Literal(Boolean.TRUE),
+                                new Ast.Expression.Literal(Boolean.FALSE)
+                        ),
+                        null
                 )
         );
     }
@@ -527,6 +568,281 @@ public final class AnalyzerTests {
         );
     }
 
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testFunctionEffect(String test, Ast.Function ast, Environment.Effect expected) {
+        Scope scope = new Scope(null);
+        scope.defineVariable("counter", "counter", Environment.Type.INTEGER, true, Environment.NIL);
+        scope.defineVariable("limit", "limit", Environment.Type.INTEGER, false, Environment.NIL);
+        scope.defineVariable("table", "table", Environment.Type.INTEGER, false, Environment.NIL);
+        Analyzer analyzer = new Analyzer(scope);
+        // VAL alias: Integer = table;
+        analyzer.visit(new Ast.Global("alias", "Integer", false, Optional.of(new Ast.Expression.Access(Optional.empty(), "table"))));
+        analyzer.visit(ast);
+        Assertions.assertEquals(expected, ast.getFunction().getEffect());
+    }
+
+    private static Stream<Arguments> testFunctionEffect() {
+        return Stream.of(
+                Arguments.of("Pure",
+                        // FUN square(x: Integer): Integer DO RETURN x * x; END
+                        new Ast.Function("square", Arrays.asList("x"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Binary("*",
+                                        new Ast.Expression.Access(Optional.empty(), "x"),
+                                        new Ast.Expression.Access(Optional.empty(), "x")
+                                ))
+                        )),
+                        Environment.Effect.PURE
+                ),
+                Arguments.of("Immutable Global",
+                        // FUN max(): Integer DO RETURN limit; END
+                        new Ast.Function("max", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Access(Optional.empty(), "limit"))
+                        )),
+                        Environment.Effect.PURE
+                ),
+                Arguments.of("Recursive",
+                        // FUN sum(n: Integer): Integer DO LET total = n; RETURN total + sum(n - 1); END
+                        new Ast.Function("sum", Arrays.asList("n"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Declaration("total", Optional.empty(), Optional.of(new Ast.Expression.Access(Optional.empty(), "n"))),
+                                new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                        new Ast.Expression.Access(Optional.empty(), "total"),
+                                        new Ast.Expression.Function("sum", Arrays.asList(new Ast.Expression.Binary("-",
+                                                new Ast.Expression.Access(Optional.empty(), "n"),
+                                                new Ast.Expression.Literal(BigInteger.ONE)
+                                        )))
+                                ))
+                        )),
+                        Environment.Effect.PURE
+                ),
+                Arguments.of("Read Global",
+                        // FUN current(): Integer DO RETURN counter; END
+                        new Ast.Function("current", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Access(Optional.empty(), "counter"))
+                        )),
+                        Environment.Effect.READ_ONLY
+                ),
+                Arguments.of("Index Immutable Global",
+                        // FUN first(): Integer DO RETURN table[0]; END
+                        new Ast.Function("first", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Access(Optional.of(new Ast.Expression.Literal(BigInteger.ZERO)), "table"))
+                        )),
+                        Environment.Effect.READ_ONLY
+                ),
+                Arguments.of("Alias Immutable Global",
+                        // FUN list(): Integer DO RETURN alias; END
+                        new Ast.Function("list", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Access(Optional.empty(), "alias"))
+                        )),
+                        Environment.Effect.READ_ONLY
+                ),
+                Arguments.of("Write Global",
+                        // FUN reset() DO counter = 0; END
+                        new Ast.Function("reset", Arrays.asList(), Arrays.asList(), Optional.empty(), Arrays.asList(
+                                new Ast.Statement.Assignment(
+                                        new Ast.Expression.Access(Optional.empty(), "counter"),
+                                        new Ast.Expression.Literal(BigInteger.ZERO)
+                                )
+                        )),
+                        Environment.Effect.EFFECTFUL
+                ),
+                Arguments.of("Mutate Argument",
+                        // FUN clear(list: Integer) DO list[0] = 0; END
+                        new Ast.Function("clear", Arrays.asList("list"), Arrays.asList("Integer"), Optional.empty(), Arrays.asList(
+                                new Ast.Statement.Assignment(
+                                        new Ast.Expression.Access(Optional.of(new Ast.Expression.Literal(BigInteger.ZERO)), "list"),
+                                        new Ast.Expression.Literal(BigInteger.ZERO)
+                                )
+                        )),
+                        Environment.Effect.EFFECTFUL
+                ),
+                Arguments.of("Print",
+                        // FUN hello() DO print("Hello, World!"); END
+                        new Ast.Function("hello", Arrays.asList(), Arrays.asList(), Optional.empty(), Arrays.asList(
+                                new Ast.Statement.Expression(new Ast.Expression.Function("print", Arrays.asList(new Ast.Expression.Literal("Hello, World!"))))
+                        )),
+                        Environment.Effect.EFFECTFUL
+                )
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testBoundedExpression(String test, Ast.Expression ast, boolean bounded) {
+        Scope scope = new Scope(null);
+        scope.defineVariable("variable", "variable", Environment.Type.INTEGER, true, Environment.NIL);
+        new Analyzer(scope).visit(ast);
+        Assertions.assertEquals(bounded, ast.isBounded());
+    }
+
+    private static Stream<Arguments> testBoundedExpression() {
+        BigInteger max = BigInteger.valueOf(Integer.MAX_VALUE);
+        return Stream.of(
+                Arguments.of("Literal",
+                        // 1
+                        new Ast.Expression.Literal(BigInteger.ONE),
+                        true
+                ),
+                Arguments.of("Integer Multiplication",
+                        // 2147483647 * 2147483647
+                        new Ast.Expression.Binary("*", new Ast.Expression.Literal(max), new Ast.Expression.Literal(max)),
+                        true
+                ),
+                Arguments.of("Integer Multiplication Overflow",
+                        // (2147483647 * 2147483647) * 2147483647
+                        new Ast.Expression.Binary("*",
+                                new Ast.Expression.Group(new Ast.Expression.Binary("*", new Ast.Expression.Literal(max), new Ast.Expression.Literal(max))),
+                                new Ast.Expression.Literal(max)
+                        ),
+                        false
+                ),
+                Arguments.of("Power",
+                        // 2 ^ 62
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(BigInteger.valueOf(2)), new Ast.Expression.Literal(BigInteger.valueOf(62))),
+                        true
+                ),
+                Arguments.of("Power Overflow",
+                        // 2 ^ 63
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(BigInteger.valueOf(2)), new Ast.Expression.Literal(BigInteger.valueOf(63))),
+                        false
+                ),
+                Arguments.of("Unbounded Variable",
+                        // variable + 1
+                        new Ast.Expression.Binary("+", new Ast.Expression.Access(Optional.empty(), "variable"), new Ast.Expression.Literal(BigInteger.ONE)),
+                        false
+                )
+        );
+    }
+
+    @Test
+    public void testBoundedLocal() {
+        // FUN main(): Integer DO LET x = 3; LET y = 3; y = y + 1; LET a = x * 2; LET b = y * 2; RETURN a + b; END
+        Ast.Expression product = new Ast.Expression.Binary("*", new Ast.Expression.Access(Optional.empty(), "x"), new Ast.Expression.Literal(BigInteger.valueOf(2)));
+        Ast.Expression assigned = new Ast.Expression.Binary("*", new Ast.Expression.Access(Optional.empty(), "y"), new Ast.Expression.Literal(BigInteger.valueOf(2)));
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Declaration("x", Optional.empty(), Optional.of(new Ast.Expression.Literal(BigInteger.valueOf(3)))),
+                        new Ast.Statement.Declaration("y", Optional.empty(), Optional.of(new Ast.Expression.Literal(BigInteger.valueOf(3)))),
+                        new Ast.Statement.Assignment(
+                                new Ast.Expression.Access(Optional.empty(), "y"),
+                                new Ast.Expression.Binary("+", new Ast.Expression.Access(Optional.empty(), "y"), new Ast.Expression.Literal(BigInteger.ONE))
+                        ),
+                        new Ast.Statement.Declaration("a", Optional.empty(), Optional.of(product)),
+                        new Ast.Statement.Declaration("b", Optional.empty(), Optional.of(assigned)),
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Access(Optional.empty(), "a"),
+                                new Ast.Expression.Access(Optional.empty(), "b")
+                        ))
+                ))
+        ));
+        new Analyzer(new Scope(null)).visit(ast);
+
+        Assertions.assertTrue(product.isBounded());
+        Assertions.assertFalse(assigned.isBounded());
+        Assertions.assertEquals(BigInteger.valueOf(14), new Interpreter(new Scope(null)).visit(ast).getValue());
+    }
+
+    @Test
+    public void testJumpTable() {
+        // SWITCH number CASE 1: CASE 2: CASE 1: DEFAULT END
+        Ast.Statement.Switch ast = new Ast.Statement.Switch(
+                new Ast.Expression.Access(Optional.empty(), "number"),
+                Arrays.asList(
+                        new Ast.Statement.Case(Optional.of(new Ast.Expression.Literal(BigInteger.ONE)), Arrays.asList()),
+                        new Ast.Statement.Case(Optional.of(new Ast.Expression.Literal(BigInteger.valueOf(2))), Arrays.asList()),
+                        new Ast.Statement.Case(Optional.of(new Ast.Expression.Literal(BigInteger.ONE)), Arrays.asList()),
+                        new Ast.Statement.Case(Optional.empty(), Arrays.asList())
+                )
+        );
+        Scope scope = new Scope(null);
+        scope.defineVariable("number", "number", Environment.Type.INTEGER, true, Environment.NIL);
+        new Analyzer(scope).visit(ast);
+
+        Map<Object, Integer> expected = new HashMap<>();
+        expected.put(BigInteger.ONE, 0);
+        expected.put(BigInteger.valueOf(2), 1);
+        Assertions.assertEquals(Optional.of(expected), ast.getJumpTable());
+    }
+
+    @Test
+    public void testNoJumpTable() {
+        // SWITCH number CASE 1: CASE number: DEFAULT END
+        Ast.Statement.Switch ast = new Ast.Statement.Switch(
+                new Ast.Expression.Access(Optional.empty(), "number"),
+                Arrays.asList(
+                        new Ast.Statement.Case(Optional.of(new Ast.Expression.Literal(BigInteger.ONE)), Arrays.asList()),
+                        new Ast.Statement.Case(Optional.of(new Ast.Expression.Access(Optional.empty(), "number")), Arrays.asList()),
+                        new Ast.Statement.Case(Optional.empty(), Arrays.asList())
+                )
+        );
+        Scope scope = new Scope(null);
+        scope.defineVariable("number", "number", Environment.Type.INTEGER, true, Environment.NIL);
+        new Analyzer(scope).visit(ast);
+        Assertions.assertEquals(Optional.empty(), ast.getJumpTable());
+    }
+
+    @Test
+    public void testListDeclaration() {
+        // LET list = [1, 2]; LET mixed = [1, 'c']; LET typed: Decimal = [1.0];
+        Ast.Statement.Declaration list = new Ast.Statement.Declaration("list", Optional.empty(), Optional.of(new Ast.Expression.PlcList(Arrays.asList(
+                new Ast.Expression.Literal(BigInteger.ONE), new Ast.Expression.Literal(BigInteger.valueOf(2))
+        ))));
+        Ast.Statement.Declaration mixed = new Ast.Statement.Declaration("mixed", Optional.empty(), Optional.of(new Ast.Expression.PlcList(Arrays.asList(
+                new Ast.Expression.Literal(BigInteger.ONE), new Ast.Expression.Literal('c')
+        ))));
+        Ast.Statement.Declaration typed = new Ast.Statement.Declaration("typed", Optional.of("Decimal"), Optional.of(new Ast.Expression.PlcList(Arrays.asList(
+                new Ast.Expression.Literal(new BigDecimal("1.0"))
+        ))));
+        Analyzer analyzer = new Analyzer(new Scope(null));
+        analyzer.visit(list);
+        analyzer.visit(mixed);
+        analyzer.visit(typed);
+
+        Assertions.assertEquals(Environment.Type.INTEGER, list.getVariable().getType());
+        Assertions.assertEquals(Environment.Type.INTEGER, ((Ast.Expression.PlcList) list.getValue().get()).getValues().get(1).getType());
+        Assertions.assertEquals(Environment.Type.ANY, mixed.getVariable().getType());
+        Assertions.assertEquals(Environment.Type.DECIMAL, typed.getVariable().getType());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testTailCall(String test, Ast.Function ast, boolean tailCall) {
+        Scope scope = new Scope(null);
+        scope.defineFunction("other", "other", Arrays.asList(Environment.Type.INTEGER), Environment.Type.INTEGER, args -> Environment.NIL);
+        new Analyzer(scope).visit(ast);
+        Ast.Statement.Return ret = (Ast.Statement.Return) ast.getStatements().get(ast.getStatements().size() - 1);
+        Assertions.assertEquals(tailCall, ret.isTailCall());
+    }
+
+    private static Stream<Arguments> testTailCall() {
+        return Stream.of(
+                Arguments.of("Self Call",
+                        // FUN loop(n: Integer): Integer DO RETURN loop(n); END
+                        new Ast.Function("loop", Arrays.asList("n"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Function("loop", Arrays.asList(new Ast.Expression.Access(Optional.empty(), "n"))))
+                        )),
+                        true
+                ),
+                Arguments.of("Other Call",
+                        // FUN loop(n: Integer): Integer DO RETURN other(n); END
+                        new Ast.Function("loop", Arrays.asList("n"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Function("other", Arrays.asList(new Ast.Expression.Access(Optional.empty(), "n"))))
+                        )),
+                        false
+                ),
+                Arguments.of("Operand",
+                        // FUN loop(n: Integer): Integer DO RETURN 1 + loop(n); END
+                        new Ast.Function("loop", Arrays.asList("n"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                        new Ast.Expression.Literal(BigInteger.ONE),
+                                        new Ast.Expression.Function("loop", Arrays.asList(new Ast.Expression.Access(Optional.empty(), "n")))
+                                ))
+                        )),
+                        false
+                )
+        );
+    }
+
     /**
      * Helper function for tests. If {@param expected} is {@code null}, analysis
      * is expected to throw a {@link RuntimeException}.
@@ -0,0 +1,80 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Builders for the ASTs shared by the tests of the execution engines and
+ * optimization passes, which construct programs without the parser.
+ */
+final class Asts {
+
+    private Asts() {}
+
+    /**
+     * Runs the program, checking what it prints, and returns its result.
+     */
+    static Object run(Supplier<Environment.PlcObject> program, String output) {
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Object result = program.get().getValue();
+            Assertions.assertEquals(output, out.toString());
+            return result;
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+    /**
+     * Returns a source with only a {@code main/0} function without a return
+     * type.
+     */
+    static Ast.Source main(Ast.Statement... statements) {
+        return new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.empty(), Arrays.asList(statements))
+        ));
+    }
+
+    /**
+     * Returns a source with only a {@code main/0} function with the given
+     * return type.
+     */
+    static Ast.Source main(String returnType, Ast.Statement... statements) {
+        return new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of(returnType), Arrays.asList(statements))
+        ));
+    }
+
+    static Ast.Statement.Declaration declaration(String name, Ast.Expression value) {
+        return new Ast.Statement.Declaration(name, Optional.empty(), Optional.of(value));
+    }
+
+    static Ast.Expression.Binary binary(String operator, Ast.Expression left, Ast.Expression right) {
+        return new Ast.Expression.Binary(operator, left, right);
+    }
+
+    static Ast.Expression.Literal literal(long value) {
+        return new Ast.Expression.Literal(BigInteger.valueOf(value));
+    }
+
+    static Ast.Expression.Access access(String name) {
+        return new Ast.Expression.Access(Optional.empty(), name);
+    }
+
+    static Ast.Statement print(String value) {
+        return print(new Ast.Expression.Literal(value));
+    }
+
+    static Ast.Statement print(Ast.Expression value) {
+        return new Ast.Statement.Expression(new Ast.Expression.Function("print", Arrays.asList(value)));
+    }
+
+}
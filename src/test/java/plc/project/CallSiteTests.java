@@ -0,0 +1,46 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+final class CallSiteTests {
+
+    @Test
+    void testCachedLookup() {
+        Scope global = new Scope(null);
+        Environment.Function function = global.defineFunction("f", 0, args -> Environment.NIL);
+        CallSite site = new CallSite();
+        Assertions.assertSame(function, site.lookup(new Scope(new Scope(global)), "f", 0));
+        Assertions.assertSame(function, site.lookup(new Scope(global), "f", 0));
+    }
+
+    @Test
+    void testShadowedLookup() {
+        Scope global = new Scope(null);
+        Environment.Function function = global.defineFunction("f", 0, args -> Environment.NIL);
+        Scope local = new Scope(global);
+        CallSite site = new CallSite();
+        Assertions.assertSame(function, site.lookup(local, "f", 0));
+
+        Environment.Function shadow = local.defineFunction("f", 0, args -> Environment.NIL);
+        Assertions.assertSame(shadow, site.lookup(local, "f", 0));
+        Assertions.assertSame(function, site.lookup(new Scope(global), "f", 0));
+    }
+
+    @Test
+    void testUnrelatedScope() {
+        Scope first = new Scope(null);
+        first.defineFunction("f", 0, args -> Environment.NIL);
+        Scope second = new Scope(null);
+        Environment.Function function = second.defineFunction("f", 0, args -> Environment.NIL);
+        CallSite site = new CallSite();
+        site.lookup(first, "f", 0);
+        Assertions.assertSame(function, site.lookup(second, "f", 0));
+    }
+
+    @Test
+    void testUndefined() {
+        Assertions.assertThrows(RuntimeException.class, () -> new CallSite().lookup(new Scope(null), "f", 0));
+    }
+
+}
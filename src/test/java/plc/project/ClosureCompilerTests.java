@@ -0,0 +1,167 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static plc.project.Asts.literal;
+import static plc.project.Asts.main;
+import static plc.project.Asts.print;
+import static plc.project.Asts.run;
+
+final class ClosureCompilerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSource(String test, Ast.Source ast, Object expected, String output) {
+        Assertions.assertEquals(expected, run(() -> new Interpreter(new Scope(null)).visit(ast), output));
+        Assertions.assertEquals(expected, run(() -> new ClosureCompiler(new Scope(null)).run(ast), output));
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                // FUN main(): Integer DO LET list = [1, 2, 3]; list[1] = 5; RETURN list[1] + list[2]; END
+                Arguments.of("List",
+                        main(
+                                new Ast.Statement.Declaration("list", Optional.empty(), Optional.of(new Ast.Expression.PlcList(Arrays.asList(
+                                        literal(1), literal(2), literal(3)
+                                )))),
+                                new Ast.Statement.Assignment(new Ast.Expression.Access(Optional.of(literal(1)), "list"), literal(5)),
+                                new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                        new Ast.Expression.Access(Optional.of(literal(1)), "list"),
+                                        new Ast.Expression.Access(Optional.of(literal(2)), "list")
+                                ))
+                        ),
+                        BigInteger.valueOf(8), ""
+                ),
+                // FUN main() DO SWITCH 2 CASE 1: print("one"); CASE 2: print("two"); DEFAULT print("other"); END END
+                Arguments.of("Switch",
+                        main(
+                                new Ast.Statement.Switch(literal(2), Arrays.asList(
+                                        new Ast.Statement.Case(Optional.of(literal(1)), Arrays.asList(print("one"))),
+                                        new Ast.Statement.Case(Optional.of(literal(2)), Arrays.asList(print("two"))),
+                                        new Ast.Statement.Case(Optional.empty(), Arrays.asList(print("other")))
+                                ))
+                        ),
+                        Environment.NIL.getValue(), "two" + System.lineSeparator()
+                ),
+                // FUN main(): Boolean DO IF TRUE DO LET x = 1; END LET x = TRUE; RETURN x || undefined; END
+                Arguments.of("Scoped Short Circuit",
+                        main(
+                                new Ast.Statement.If(new Ast.Expression.Literal(true), Arrays.asList(
+                                        new Ast.Statement.Declaration("x", Optional.empty(), Optional.of(literal(1)))
+                                ), Arrays.asList()),
+                                new Ast.Statement.Declaration("x", Optional.empty(), Optional.of(new Ast.Expression.Literal(true))),
+                                new Ast.Statement.Return(new Ast.Expression.Binary("||",
+                                        new Ast.Expression.Access(Optional.empty(), "x"),
+                                        new Ast.Expression.Access(Optional.empty(), "undefined")
+                                ))
+                        ),
+                        true, ""
+                )
+        );
+    }
+
+    @Test
+    void testDoubleDecimalSwitch() {
+        // FUN main(): Integer DO SWITCH 2.50 CASE 2.50: RETURN 1; DEFAULT RETURN 0; END END
+        Ast.Source ast = main("Integer",
+                new Ast.Statement.Switch(new Ast.Expression.Literal(new BigDecimal("2.50")), Arrays.asList(
+                        new Ast.Statement.Case(Optional.of(new Ast.Expression.Literal(new BigDecimal("2.50"))), Arrays.asList(
+                                new Ast.Statement.Return(literal(1))
+                        )),
+                        new Ast.Statement.Case(Optional.empty(), Arrays.asList(new Ast.Statement.Return(literal(0))))
+                ))
+        );
+        new Analyzer(new Scope(null)).visit(ast);
+
+        ClosureCompiler compiler = new ClosureCompiler(new Scope(null));
+        compiler.setDoubleDecimals(true);
+        Assertions.assertEquals(BigInteger.ONE, compiler.run(ast).getValue());
+    }
+
+    @Test
+    void testLoop() {
+        // VAR total: Integer = 0;
+        // FUN main(): Integer DO LET i = 0; WHILE i < 10 DO total = total + i; i = i + 1; END RETURN total; END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(new Ast.Global("total", "Integer", true, Optional.of(literal(0)))),
+                Arrays.asList(new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Declaration("i", Optional.empty(), Optional.of(literal(0))),
+                        new Ast.Statement.While(
+                                new Ast.Expression.Binary("<", new Ast.Expression.Access(Optional.empty(), "i"), literal(10)),
+                                Arrays.asList(
+                                        new Ast.Statement.Assignment(
+                                                new Ast.Expression.Access(Optional.empty(), "total"),
+                                                new Ast.Expression.Binary("+",
+                                                        new Ast.Expression.Access(Optional.empty(), "total"),
+                                                        new Ast.Expression.Access(Optional.empty(), "i")
+                                                )
+                                        ),
+                                        new Ast.Statement.Assignment(
+                                                new Ast.Expression.Access(Optional.empty(), "i"),
+                                                new Ast.Expression.Binary("+", new Ast.Expression.Access(Optional.empty(), "i"), literal(1))
+                                        )
+                                )
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Access(Optional.empty(), "total"))
+                )))
+        );
+        new Analyzer(new Scope(null)).visit(ast);
+
+        ClosureCompiler compiler = new ClosureCompiler(new Scope(null));
+        Assertions.assertEquals(BigInteger.valueOf(45), compiler.run(ast).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(45), compiler.getScope().lookupVariable("total").getValue().getValue());
+    }
+
+    @Test
+    void testRecursion() {
+        // FUN fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END
+        // FUN main(): Integer DO RETURN fib(20); END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Function("fib", Arrays.asList(literal(20))))
+                )),
+                new Ast.Function("fib", Arrays.asList("n"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.If(
+                                new Ast.Expression.Binary("<", new Ast.Expression.Access(Optional.empty(), "n"), literal(2)),
+                                Arrays.asList(new Ast.Statement.Return(new Ast.Expression.Access(Optional.empty(), "n"))),
+                                Arrays.asList()
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Function("fib", Arrays.asList(
+                                        new Ast.Expression.Binary("-", new Ast.Expression.Access(Optional.empty(), "n"), literal(1))
+                                )),
+                                new Ast.Expression.Function("fib", Arrays.asList(
+                                        new Ast.Expression.Binary("-", new Ast.Expression.Access(Optional.empty(), "n"), literal(2))
+                                ))
+                        ))
+                ))
+        ));
+
+        Assertions.assertEquals(BigInteger.valueOf(6765), new ClosureCompiler(new Scope(null)).run(ast).getValue());
+    }
+
+    @Test
+    void testImmutableAssignment() {
+        // VAL x = 1; FUN main() DO x = 2; END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(new Ast.Global("x", "Integer", false, Optional.of(literal(1)))),
+                Arrays.asList(new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.empty(), Arrays.asList(
+                        new Ast.Statement.Assignment(new Ast.Expression.Access(Optional.empty(), "x"), literal(2))
+                )))
+        );
+
+        Assertions.assertThrows(RuntimeException.class, () -> new Interpreter(new Scope(null)).visit(ast));
+        Assertions.assertThrows(RuntimeException.class, () -> new ClosureCompiler(new Scope(null)).run(ast));
+    }
+
+}
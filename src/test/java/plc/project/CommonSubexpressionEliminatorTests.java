@@ -0,0 +1,135 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+
+import static plc.project.Asts.access;
+import static plc.project.Asts.binary;
+import static plc.project.Asts.declaration;
+import static plc.project.Asts.literal;
+import static plc.project.Asts.main;
+
+final class CommonSubexpressionEliminatorTests {
+
+    @Test
+    void testBlock() {
+        // LET price = 3; LET rate = 4;
+        // LET a = price * rate + 1; LET b = price * rate * 2;
+        // RETURN a + b + price * rate;
+        Ast.Source ast = main("Integer",
+                declaration("price", literal(3)),
+                declaration("rate", literal(4)),
+                declaration("a", binary("+", binary("*", access("price"), access("rate")), literal(1))),
+                declaration("b", binary("*", binary("*", access("price"), access("rate")), literal(2))),
+                new Ast.Statement.Return(binary("+", binary("+", access("a"), access("b")), binary("*", access("price"), access("rate"))))
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        CommonSubexpressionEliminator eliminator = new CommonSubexpressionEliminator();
+        Ast.Source optimized = (Ast.Source) eliminator.visit(ast);
+
+        Assertions.assertEquals(2, eliminator.getEliminated());
+        List<Ast.Statement> statements = optimized.getFunctions().get(0).getStatements();
+        Assertions.assertEquals(6, statements.size());
+        Assertions.assertEquals("$cse0", ((Ast.Statement.Declaration) statements.get(2)).getName());
+        Assertions.assertEquals(BigInteger.valueOf(49), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testNested() {
+        // LET p = 2; LET r = 3;
+        // LET a = (p * r + 1) * 2; LET b = (p * r + 1) * 3; LET c = p * r;
+        // RETURN a + b + c;
+        Ast.Source ast = main("Integer",
+                declaration("p", literal(2)),
+                declaration("r", literal(3)),
+                declaration("a", binary("*", new Ast.Expression.Group(binary("+", binary("*", access("p"), access("r")), literal(1))), literal(2))),
+                declaration("b", binary("*", new Ast.Expression.Group(binary("+", binary("*", access("p"), access("r")), literal(1))), literal(3))),
+                declaration("c", binary("*", access("p"), access("r"))),
+                new Ast.Statement.Return(binary("+", binary("+", access("a"), access("b")), access("c")))
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        CommonSubexpressionEliminator eliminator = new CommonSubexpressionEliminator();
+        Ast.Source optimized = (Ast.Source) eliminator.visit(ast);
+
+        Assertions.assertEquals(2, eliminator.getEliminated());
+        List<Ast.Statement> statements = optimized.getFunctions().get(0).getStatements();
+        Assertions.assertEquals(8, statements.size());
+        Assertions.assertEquals("$cse0", ((Ast.Statement.Declaration) statements.get(2)).getName());
+        Assertions.assertEquals("$cse1", ((Ast.Statement.Declaration) statements.get(3)).getName());
+        Assertions.assertEquals(BigInteger.valueOf(41), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testAssigned() {
+        // LET x = 2; LET a = x * x; x = x + 1; LET b = x * x;
+        // RETURN a + b;
+        Ast.Source ast = main("Integer",
+                declaration("x", literal(2)),
+                declaration("a", binary("*", access("x"), access("x"))),
+                new Ast.Statement.Assignment(access("x"), binary("+", access("x"), literal(1))),
+                declaration("b", binary("*", access("x"), access("x"))),
+                new Ast.Statement.Return(binary("+", access("a"), access("b")))
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        CommonSubexpressionEliminator eliminator = new CommonSubexpressionEliminator();
+        Ast.Source optimized = (Ast.Source) eliminator.visit(ast);
+
+        Assertions.assertEquals(0, eliminator.getEliminated());
+        Assertions.assertEquals(ast, optimized);
+        Assertions.assertEquals(BigInteger.valueOf(13), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testRerun() {
+        // LET p = 2; LET $cse0 = p + 1;
+        // LET a = $cse0 * p * 3; LET b = p * 3;
+        // RETURN a + b;
+        // with $cse0 left by an earlier run of the pass
+        Ast.Source ast = main("Integer",
+                declaration("p", literal(2)),
+                declaration("$cse0", binary("+", access("p"), literal(1))),
+                declaration("a", binary("*", access("$cse0"), binary("*", access("p"), literal(3)))),
+                declaration("b", binary("*", access("p"), literal(3))),
+                new Ast.Statement.Return(binary("+", access("a"), access("b")))
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        CommonSubexpressionEliminator eliminator = new CommonSubexpressionEliminator();
+        Ast.Source optimized = (Ast.Source) eliminator.visit(ast);
+
+        Assertions.assertEquals(1, eliminator.getEliminated());
+        List<Ast.Statement> statements = optimized.getFunctions().get(0).getStatements();
+        Assertions.assertEquals("$cse1", ((Ast.Statement.Declaration) statements.get(2)).getName());
+        Assertions.assertEquals(BigInteger.valueOf(24), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testShortCircuit() {
+        // LET n: Integer; LET f = FALSE;
+        // LET p = f && n * 2 > 1; LET q = f && n * 2 < 1;
+        // RETURN 0;
+        Ast.Source ast = main("Integer",
+                new Ast.Statement.Declaration("n", Optional.of("Integer"), Optional.empty()),
+                declaration("f", new Ast.Expression.Literal(false)),
+                declaration("p", binary("&&", access("f"), binary(">", binary("*", access("n"), literal(2)), literal(1)))),
+                declaration("q", binary("&&", access("f"), binary("<", binary("*", access("n"), literal(2)), literal(1)))),
+                new Ast.Statement.Return(literal(0))
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        CommonSubexpressionEliminator eliminator = new CommonSubexpressionEliminator();
+        Ast.Source optimized = (Ast.Source) eliminator.visit(ast);
+
+        Assertions.assertEquals(0, eliminator.getEliminated());
+        Assertions.assertEquals(ast, optimized);
+        Assertions.assertEquals(BigInteger.ZERO, new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+}
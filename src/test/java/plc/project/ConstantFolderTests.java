@@ -0,0 +1,164 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+final class ConstantFolderTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testExpression(String test, Ast.Expression ast, Object expected) {
+        new Analyzer(new Scope(null)).visit(ast);
+        Ast.Expression folded = (Ast.Expression) new ConstantFolder().visit(ast);
+        if (expected != null) {
+            Assertions.assertTrue(folded instanceof Ast.Expression.Literal, folded.toString());
+            Assertions.assertEquals(expected, ((Ast.Expression.Literal) folded).getLiteral());
+            Assertions.assertEquals(ast.getType(), folded.getType());
+        } else {
+            Assertions.assertEquals(ast, folded);
+        }
+    }
+
+    private static Stream<Arguments> testExpression() {
+        return Stream.of(
+                // 2 ^ 10
+                Arguments.of("Power",
+                        new Ast.Expression.Binary("^",
+                                new Ast.Expression.Literal(BigInteger.valueOf(2)),
+                                new Ast.Expression.Literal(BigInteger.TEN)
+                        ),
+                        BigInteger.valueOf(1024)
+                ),
+                // "a" + "b"
+                Arguments.of("Concatenation",
+                        new Ast.Expression.Binary("+",
+                                new Ast.Expression.Literal("a"),
+                                new Ast.Expression.Literal("b")
+                        ),
+                        "ab"
+                ),
+                // (1.5 * 2.0) - 1.0
+                Arguments.of("Nested Group",
+                        new Ast.Expression.Binary("-",
+                                new Ast.Expression.Group(new Ast.Expression.Binary("*",
+                                        new Ast.Expression.Literal(new BigDecimal("1.5")),
+                                        new Ast.Expression.Literal(new BigDecimal("2.0"))
+                                )),
+                                new Ast.Expression.Literal(new BigDecimal("1.0"))
+                        ),
+                        new BigDecimal("2.00")
+                ),
+                // 1 / 0
+                Arguments.of("Division By Zero",
+                        new Ast.Expression.Binary("/",
+                                new Ast.Expression.Literal(BigInteger.ONE),
+                                new Ast.Expression.Literal(BigInteger.ZERO)
+                        ),
+                        null
+                )
+        );
+    }
+
+    @Test
+    void testPropagation() {
+        // VAL max: Integer = 2 ^ 10;
+        // FUN main(): Integer DO LET greeting = "a" + "b"; print(greeting); RETURN (max + 1); END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(new Ast.Global("max", "Integer", false, Optional.of(new Ast.Expression.Binary("^",
+                        new Ast.Expression.Literal(BigInteger.valueOf(2)),
+                        new Ast.Expression.Literal(BigInteger.TEN)
+                )))),
+                Arrays.asList(new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Declaration("greeting", Optional.empty(), Optional.of(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Literal("a"),
+                                new Ast.Expression.Literal("b")
+                        ))),
+                        new Ast.Statement.Expression(new Ast.Expression.Function("print", Arrays.asList(
+                                new Ast.Expression.Access(Optional.empty(), "greeting")
+                        ))),
+                        new Ast.Statement.Return(new Ast.Expression.Group(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Access(Optional.empty(), "max"),
+                                new Ast.Expression.Literal(BigInteger.ONE)
+                        )))
+                )))
+        );
+
+        Ast.Source folded = test(ast, BigInteger.valueOf(1025), 7);
+        Ast.Function main = folded.getFunctions().get(0);
+        Ast.Expression.Function print = (Ast.Expression.Function) ((Ast.Statement.Expression) main.getStatements().get(1)).getExpression();
+        Assertions.assertEquals("ab", ((Ast.Expression.Literal) print.getArguments().get(0)).getLiteral());
+        Assertions.assertEquals(BigInteger.valueOf(1025), ((Ast.Expression.Literal) ((Ast.Statement.Return) main.getStatements().get(2)).getValue()).getLiteral());
+    }
+
+    @Test
+    void testAssignedNotPropagated() {
+        // FUN main(): Integer DO LET x = 1; x = x + 1; RETURN x; END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(),
+                Arrays.asList(new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Declaration("x", Optional.empty(), Optional.of(new Ast.Expression.Literal(BigInteger.ONE))),
+                        new Ast.Statement.Assignment(
+                                new Ast.Expression.Access(Optional.empty(), "x"),
+                                new Ast.Expression.Binary("+",
+                                        new Ast.Expression.Access(Optional.empty(), "x"),
+                                        new Ast.Expression.Literal(BigInteger.ONE)
+                                )
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Access(Optional.empty(), "x"))
+                )))
+        );
+
+        Ast.Source folded = test(ast, BigInteger.valueOf(2), 0);
+        Assertions.assertTrue(((Ast.Statement.Return) folded.getFunctions().get(0).getStatements().get(2)).getValue() instanceof Ast.Expression.Access);
+    }
+
+    @Test
+    void testJumpTable() {
+        // SWITCH number CASE 1: CASE 1 + 1: DEFAULT END
+        Ast.Statement.Switch ast = new Ast.Statement.Switch(
+                new Ast.Expression.Access(Optional.empty(), "number"),
+                Arrays.asList(
+                        new Ast.Statement.Case(Optional.of(new Ast.Expression.Literal(BigInteger.ONE)), Arrays.asList()),
+                        new Ast.Statement.Case(Optional.of(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Literal(BigInteger.ONE),
+                                new Ast.Expression.Literal(BigInteger.ONE)
+                        )), Arrays.asList()),
+                        new Ast.Statement.Case(Optional.empty(), Arrays.asList())
+                )
+        );
+        Scope scope = new Scope(null);
+        scope.defineVariable("number", "number", Environment.Type.INTEGER, true, Environment.NIL);
+        new Analyzer(scope).visit(ast);
+        Assertions.assertFalse(ast.getJumpTable().isPresent());
+
+        Ast.Statement.Switch folded = (Ast.Statement.Switch) new ConstantFolder().visit(ast);
+        Assertions.assertTrue(folded.getJumpTable().isPresent());
+        Assertions.assertEquals(Integer.valueOf(1), folded.getJumpTable().get().get(BigInteger.valueOf(2)));
+
+        Ast.Statement.Switch refolded = (Ast.Statement.Switch) new ConstantFolder().visit(folded);
+        Assertions.assertEquals(folded.getJumpTable(), refolded.getJumpTable());
+    }
+
+    /**
+     * Analyzes and folds the source, checking the number of removed nodes and
+     * that the folded program still evaluates to the expected value.
+     */
+    private static Ast.Source test(Ast.Source ast, Object expected, int removed) {
+        new Analyzer(new Scope(null)).visit(ast);
+        ConstantFolder folder = new ConstantFolder();
+        Ast.Source folded = (Ast.Source) folder.visit(ast);
+        Assertions.assertEquals(removed, folder.getRemoved());
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(folded).getValue());
+        return folded;
+    }
+
+}
@@ -0,0 +1,107 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static plc.project.Asts.print;
+
+final class DeadCodeEliminatorTests {
+
+    @Test
+    void testSource() {
+        // FUN unused(): Integer DO RETURN 1; END
+        // FUN helper(): Integer DO RETURN 2; END
+        // FUN main(): Integer DO
+        //     IF TRUE DO print("then"); ELSE print("else"); END
+        //     WHILE FALSE DO print("loop"); END
+        //     SWITCH 2 CASE 1: print("one"); DEFAULT: print("other"); END
+        //     RETURN helper();
+        //     print("after");
+        // END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(),
+                Arrays.asList(
+                        new Ast.Function("unused", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Literal(BigInteger.ONE))
+                        )),
+                        new Ast.Function("helper", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Literal(BigInteger.valueOf(2)))
+                        )),
+                        new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.If(new Ast.Expression.Literal(true), Arrays.asList(print("then")), Arrays.asList(print("else"))),
+                                new Ast.Statement.While(new Ast.Expression.Literal(false), Arrays.asList(print("loop"))),
+                                new Ast.Statement.Switch(new Ast.Expression.Literal(BigInteger.valueOf(2)), Arrays.asList(
+                                        new Ast.Statement.Case(Optional.of(new Ast.Expression.Literal(BigInteger.ONE)), Arrays.asList(print("one"))),
+                                        new Ast.Statement.Case(Optional.empty(), Arrays.asList(print("other")))
+                                )),
+                                new Ast.Statement.Return(new Ast.Expression.Function("helper", Arrays.asList())),
+                                print("after")
+                        ))
+                )
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        DeadCodeEliminator eliminator = new DeadCodeEliminator();
+        Ast.Source optimized = (Ast.Source) eliminator.visit(ast);
+
+        Assertions.assertEquals(24, eliminator.getRemoved());
+        Assertions.assertEquals(2, optimized.getFunctions().size());
+        List<Ast.Statement> statements = optimized.getFunctions().get(1).getStatements();
+        Assertions.assertEquals(3, statements.size());
+        Assertions.assertEquals(ast.getFunctions().get(2).getStatements().get(3), statements.get(2));
+
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Assertions.assertEquals(BigInteger.valueOf(2), new Interpreter(new Scope(null)).visit(optimized).getValue());
+            Assertions.assertEquals("then" + System.lineSeparator() + "other" + System.lineSeparator(), out.toString());
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+    @Test
+    void testScopedBranch() {
+        // IF FALSE DO print("then"); ELSE LET x = 1; print(x); END
+        Scope scope = new Scope(null);
+        scope.defineFunction("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL);
+        Ast.Statement.If ast = new Ast.Statement.If(new Ast.Expression.Literal(false),
+                Arrays.asList(print("then")),
+                Arrays.asList(
+                        new Ast.Statement.Declaration("x", Optional.empty(), Optional.of(new Ast.Expression.Literal(BigInteger.ONE))),
+                        new Ast.Statement.Expression(new Ast.Expression.Function("print", Arrays.asList(new Ast.Expression.Access(Optional.empty(), "x"))))
+                )
+        );
+        new Analyzer(scope).visit(ast);
+
+        DeadCodeEliminator eliminator = new DeadCodeEliminator();
+        Ast.Statement.If optimized = (Ast.Statement.If) eliminator.visit(ast);
+        Assertions.assertEquals(Boolean.TRUE, ((Ast.Expression.Literal) optimized.getCondition()).getLiteral());
+        Assertions.assertEquals(ast.getElseStatements(), optimized.getThenStatements());
+        Assertions.assertTrue(optimized.getElseStatements().isEmpty());
+        Assertions.assertEquals(3, eliminator.getRemoved());
+    }
+
+    @Test
+    void testNoMain() {
+        // FUN helper(): Integer DO RETURN 2; END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("helper", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Literal(BigInteger.valueOf(2)))
+                ))
+        ));
+
+        DeadCodeEliminator eliminator = new DeadCodeEliminator();
+        Assertions.assertEquals(ast, eliminator.visit(ast));
+        Assertions.assertEquals(0, eliminator.getRemoved());
+    }
+
+}
@@ -0,0 +1,66 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+final class EnvironmentTests {
+
+    @Test
+    void testBooleans() {
+        Assertions.assertSame(Environment.TRUE, Environment.create(true));
+        Assertions.assertSame(Environment.FALSE, Environment.create(Boolean.FALSE));
+        Assertions.assertEquals(true, Environment.TRUE.getValue());
+    }
+
+    @Test
+    void testSmallIntegers() {
+        Environment.ValueCache cache = Environment.getValueCache();
+        cache.resetStatistics();
+        Assertions.assertSame(Environment.create(BigInteger.ZERO), Environment.create(BigInteger.valueOf(0)));
+        Assertions.assertSame(Environment.create(BigInteger.valueOf(cache.getLow())), Environment.create((Object) BigInteger.valueOf(cache.getLow())));
+        Assertions.assertSame(Environment.create(BigInteger.valueOf(cache.getHigh())), Environment.create(BigInteger.valueOf(cache.getHigh())));
+        Assertions.assertEquals(6, cache.getHits());
+        Assertions.assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void testLargeIntegers() {
+        Environment.ValueCache cache = Environment.getValueCache();
+        cache.resetStatistics();
+        BigInteger large = BigInteger.valueOf(cache.getHigh()).add(BigInteger.ONE);
+        Assertions.assertNotSame(Environment.create(large), Environment.create(large));
+        Assertions.assertEquals(large, Environment.create(large).getValue());
+        Assertions.assertNotSame(Environment.create(BigInteger.TEN.pow(20)), Environment.create(BigInteger.TEN.pow(20)));
+        Assertions.assertEquals(0, cache.getHits());
+        Assertions.assertEquals(5, cache.getMisses());
+        Assertions.assertEquals(0.0, cache.getHitRate());
+    }
+
+    @Test
+    void testCharacters() {
+        Assertions.assertSame(Environment.create('a'), Environment.create((Object) 'a'));
+        Assertions.assertSame(Environment.create('\u007F'), Environment.create('\u007F'));
+        Assertions.assertNotSame(Environment.create('\u00E9'), Environment.create('\u00E9'));
+        Assertions.assertEquals('\u00E9', Environment.create('\u00E9').getValue());
+    }
+
+    @Test
+    void testPrimitiveInteger() {
+        Environment.PlcObject value = Environment.createInteger(Long.MAX_VALUE);
+        Assertions.assertTrue(value.isLong());
+        Assertions.assertEquals(BigInteger.valueOf(Long.MAX_VALUE), value.getValue());
+        Assertions.assertTrue(Environment.create(BigInteger.valueOf(Long.MIN_VALUE)).isLong());
+        Assertions.assertFalse(Environment.create(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE)).isLong());
+    }
+
+    @Test
+    void testPrimitiveDecimal() {
+        Environment.PlcObject value = Environment.createDecimal(2.5);
+        Assertions.assertTrue(value.isDouble());
+        Assertions.assertEquals(new BigDecimal("2.5"), value.getValue());
+    }
+
+}
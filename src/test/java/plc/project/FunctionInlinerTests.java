@@ -0,0 +1,198 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static plc.project.Asts.access;
+import static plc.project.Asts.binary;
+import static plc.project.Asts.declaration;
+import static plc.project.Asts.literal;
+
+final class FunctionInlinerTests {
+
+    @Test
+    void testExpression() {
+        // VAL rate: Integer = 3;
+        // FUN scale(x: Integer): Integer DO RETURN x * rate; END
+        // FUN main(): Integer DO LET a = 2; RETURN scale(a) + scale(a + 1); END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(new Ast.Global("rate", "Integer", false, Optional.of(literal(3)))),
+                Arrays.asList(
+                        scale(),
+                        function("main", Arrays.asList(),
+                                declaration("a", literal(2)),
+                                new Ast.Statement.Return(binary("+", call("scale", access("a")), call("scale", binary("+", access("a"), literal(1)))))
+                        )
+                )
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        FunctionInliner inliner = new FunctionInliner();
+        Ast.Source optimized = (Ast.Source) inliner.visit(ast);
+
+        Assertions.assertEquals(2, inliner.getInlined());
+        Assertions.assertEquals(0, calls(optimized.getFunctions().get(1)));
+        Assertions.assertEquals(BigInteger.valueOf(15), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testStatement() {
+        // FUN area(w: Integer, h: Integer): Integer DO LET size = w * h; RETURN size + size; END
+        // FUN main(): Integer DO LET size = 1; LET result = area(size + 1, 3); RETURN result + size; END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                function("area", Arrays.asList("w", "h"),
+                        declaration("size", binary("*", access("w"), access("h"))),
+                        new Ast.Statement.Return(binary("+", access("size"), access("size")))
+                ),
+                function("main", Arrays.asList(),
+                        declaration("size", literal(1)),
+                        declaration("result", call("area", binary("+", access("size"), literal(1)), literal(3))),
+                        new Ast.Statement.Return(binary("+", access("result"), access("size")))
+                )
+        ));
+
+        new Analyzer(new Scope(null)).visit(ast);
+        FunctionInliner inliner = new FunctionInliner();
+        Ast.Source optimized = (Ast.Source) inliner.visit(ast);
+
+        Assertions.assertEquals(1, inliner.getInlined());
+        List<Ast.Statement> statements = optimized.getFunctions().get(1).getStatements();
+        Assertions.assertEquals(6, statements.size());
+        Assertions.assertEquals("$inline0_w", ((Ast.Statement.Declaration) statements.get(1)).getName());
+        Assertions.assertEquals("$inline0_size", ((Ast.Statement.Declaration) statements.get(3)).getName());
+        Assertions.assertEquals(0, calls(optimized.getFunctions().get(1)));
+        Assertions.assertEquals(BigInteger.valueOf(13), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testTwoPasses() {
+        // FUN f(x: Integer): Integer DO LET y = x + 1; RETURN x * y; END
+        // FUN g(x: Integer): Integer DO LET z = f(x); RETURN z + 1; END
+        // FUN main(): Integer DO LET r = g(g(3)); RETURN r; END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                function("f", Arrays.asList("x"),
+                        declaration("y", binary("+", access("x"), literal(1))),
+                        new Ast.Statement.Return(binary("*", access("x"), access("y")))
+                ),
+                function("g", Arrays.asList("x"),
+                        declaration("z", call("f", access("x"))),
+                        new Ast.Statement.Return(binary("+", access("z"), literal(1)))
+                ),
+                function("main", Arrays.asList(),
+                        declaration("r", call("g", call("g", literal(3)))),
+                        new Ast.Statement.Return(access("r"))
+                )
+        ));
+
+        new Analyzer(new Scope(null)).visit(ast);
+        Ast.Source once = (Ast.Source) new FunctionInliner().visit(ast);
+        Assertions.assertEquals(BigInteger.valueOf(183), new Interpreter(new Scope(null)).visit(once).getValue());
+
+        new Analyzer(new Scope(null)).visit(once);
+        Ast.Source twice = (Ast.Source) new FunctionInliner().visit(once);
+        Set<String> names = new HashSet<>();
+        Rewriter.walk(twice.getFunctions().get(2), node -> {
+            if (node instanceof Ast.Statement.Declaration) {
+                Assertions.assertTrue(names.add(((Ast.Statement.Declaration) node).getName()));
+            }
+        });
+        Assertions.assertEquals(0, calls(twice.getFunctions().get(2)));
+        Assertions.assertEquals(BigInteger.valueOf(183), new Interpreter(new Scope(null)).visit(twice).getValue());
+    }
+
+    @Test
+    void testNotInlined() {
+        // VAL rate: Integer = 3;
+        // FUN scale(x: Integer): Integer DO RETURN x * rate; END
+        // FUN down(n: Integer): Integer DO RETURN down(n - 1); END
+        // FUN main(): Integer DO LET rate = 10; IF rate == 0 DO RETURN down(1); END RETURN scale(rate); END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(new Ast.Global("rate", "Integer", false, Optional.of(literal(3)))),
+                Arrays.asList(
+                        scale(),
+                        function("down", Arrays.asList("n"),
+                                new Ast.Statement.Return(call("down", binary("-", access("n"), literal(1))))
+                        ),
+                        function("main", Arrays.asList(),
+                                declaration("rate", literal(10)),
+                                new Ast.Statement.If(binary("==", access("rate"), literal(0)),
+                                        Arrays.asList(new Ast.Statement.Return(call("down", literal(1)))),
+                                        Arrays.asList()
+                                ),
+                                new Ast.Statement.Return(call("scale", access("rate")))
+                        )
+                )
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        FunctionInliner inliner = new FunctionInliner();
+        Ast.Source optimized = (Ast.Source) inliner.visit(ast);
+
+        Assertions.assertEquals(0, inliner.getInlined());
+        Assertions.assertEquals(ast, optimized);
+        Assertions.assertEquals(BigInteger.valueOf(30), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testProfile() {
+        // VAL rate: Integer = 3;
+        // FUN scale(x: Integer): Integer DO RETURN x * rate; END
+        // FUN get(x: Integer): Integer DO RETURN x; END
+        // FUN main(): Integer DO RETURN scale(get(2)); END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(new Ast.Global("rate", "Integer", false, Optional.of(literal(3)))),
+                Arrays.asList(
+                        scale(),
+                        function("get", Arrays.asList("x"), new Ast.Statement.Return(access("x"))),
+                        function("main", Arrays.asList(), new Ast.Statement.Return(call("scale", call("get", literal(2)))))
+                )
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        TieredInterpreter interpreter = new TieredInterpreter(new Scope(null));
+        Assertions.assertEquals(BigInteger.valueOf(6), interpreter.visit(ast).getValue());
+        Assertions.assertEquals(Integer.valueOf(1), interpreter.getCalls().get("scale/1"));
+
+        FunctionInliner inliner = new FunctionInliner();
+        inliner.setProfile(interpreter.getCalls(), 2);
+        Ast.Source optimized = (Ast.Source) inliner.visit(ast);
+
+        Assertions.assertEquals(1, inliner.getInlined());
+        Ast.Expression.Function call = (Ast.Expression.Function) ((Ast.Statement.Return) optimized.getFunctions().get(2).getStatements().get(0)).getValue();
+        Assertions.assertEquals("scale", call.getName());
+        Assertions.assertEquals(BigInteger.valueOf(2), ((Ast.Expression.Literal) call.getArguments().get(0)).getLiteral());
+        Assertions.assertEquals(BigInteger.valueOf(6), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    private static Ast.Function scale() {
+        return function("scale", Arrays.asList("x"), new Ast.Statement.Return(binary("*", access("x"), access("rate"))));
+    }
+
+    private static int calls(Ast ast) {
+        int[] calls = {0};
+        Rewriter.walk(ast, node -> {
+            if (node instanceof Ast.Expression.Function) {
+                calls[0]++;
+            }
+        });
+        return calls[0];
+    }
+
+    private static Ast.Function function(String name, List<String> parameters, Ast.Statement... statements) {
+        List<String> types = Arrays.asList(new String[parameters.size()]);
+        types.replaceAll(type -> "Integer");
+        return new Ast.Function(name, parameters, types, Optional.of("Integer"), Arrays.asList(statements));
+    }
+
+    private static Ast.Expression.Function call(String name, Ast.Expression... arguments) {
+        return new Ast.Expression.Function(name, Arrays.asList(arguments));
+    }
+
+}
@@ -0,0 +1,71 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static plc.project.Asts.print;
+
+final class GeneratorTests {
+
+    @Test
+    void testSource() {
+        // VAR count: Integer = 0;
+        // FUN main(): Integer DO
+        //     WHILE count < 3 DO count = count + 1; END
+        //     SWITCH count CASE 3: print("three"); DEFAULT print("other"); END
+        //     RETURN count;
+        // END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(new Ast.Global("count", "Integer", true, Optional.of(new Ast.Expression.Literal(BigInteger.ZERO)))),
+                Arrays.asList(new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.While(
+                                new Ast.Expression.Binary("<", new Ast.Expression.Access(Optional.empty(), "count"), new Ast.Expression.Literal(BigInteger.valueOf(3))),
+                                Arrays.asList(new Ast.Statement.Assignment(
+                                        new Ast.Expression.Access(Optional.empty(), "count"),
+                                        new Ast.Expression.Binary("+", new Ast.Expression.Access(Optional.empty(), "count"), new Ast.Expression.Literal(BigInteger.ONE))
+                                ))
+                        ),
+                        new Ast.Statement.Switch(new Ast.Expression.Access(Optional.empty(), "count"), Arrays.asList(
+                                new Ast.Statement.Case(Optional.of(new Ast.Expression.Literal(BigInteger.valueOf(3))), Arrays.asList(print("three"))),
+                                new Ast.Statement.Case(Optional.empty(), Arrays.asList(print("other")))
+                        )),
+                        new Ast.Statement.Return(new Ast.Expression.Access(Optional.empty(), "count"))
+                )))
+        );
+        new Analyzer(new Scope(null)).visit(ast);
+
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(ast);
+        String expected = String.join(System.lineSeparator(),
+                "public final class Program {",
+                "",
+                "    private static final BigInteger $0 = new BigInteger(\"0\");",
+                "    private static final BigInteger $1 = new BigInteger(\"3\");",
+                "    private static final BigInteger $2 = new BigInteger(\"1\");",
+                "",
+                "    static BigInteger count = $0;",
+                "",
+                "    public static BigInteger main() {",
+                "        while ((count.compareTo($1) < 0)) {",
+                "            count = count.add($2);",
+                "        }",
+                "        BigInteger $switch0 = count;",
+                "        if ($switch0.equals($1)) {",
+                "            System.out.println(\"three\");",
+                "        } else {",
+                "            System.out.println(\"other\");",
+                "        }",
+                "        return count;",
+                "    }",
+                ""
+        );
+        Assertions.assertTrue(writer.toString().contains(expected), writer.toString());
+    }
+
+}
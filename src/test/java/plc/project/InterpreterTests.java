@@ -242,6 +242,79 @@ final class InterpreterTests {
         Assertions.assertEquals(new Character('n'), scope.lookupVariable("letter").getValue().getValue());
     }
 
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSwitchDispatch(String test, boolean analyze, Object expected) {
+        // SWITCH next() CASE 0: result = 0; CASE 1: result = 1; ... CASE 199: result = 199; DEFAULT: result = -1; END
+        int[] invocations = {0};
+        Scope scope = new Scope(null);
+        scope.defineVariable("result", "result", Environment.Type.INTEGER, true, Environment.NIL);
+        scope.defineFunction("next", "next", Arrays.asList(), Environment.Type.INTEGER, args -> {
+            invocations[0]++;
+            return Environment.create(BigInteger.valueOf(150));
+        });
+
+        List<Ast.Statement.Case> cases = IntStream.range(0, 200)
+                .mapToObj(i -> new Ast.Statement.Case(Optional.of(new Ast.Expression.Literal(BigInteger.valueOf(i))), Arrays.asList(
+                        new Ast.Statement.Assignment(new Ast.Expression.Access(Optional.empty(), "result"), new Ast.Expression.Literal(BigInteger.valueOf(i)))
+                )))
+                .collect(Collectors.toList());
+        cases.add(new Ast.Statement.Case(Optional.empty(), Arrays.asList(
+                new Ast.Statement.Assignment(new Ast.Expression.Access(Optional.empty(), "result"), new Ast.Expression.Literal(BigInteger.valueOf(-1)))
+        )));
+        Ast.Statement.Switch ast = new Ast.Statement.Switch(new Ast.Expression.Function("next", Arrays.asList()), cases);
+        if (analyze) {
+            new Analyzer(scope).visit(ast);
+            Assertions.assertTrue(ast.getJumpTable().isPresent());
+        }
+
+        Interpreter interpreter = new Interpreter(scope);
+        Scope before = interpreter.getScope();
+        interpreter.visit(ast);
+        Assertions.assertEquals(expected, scope.lookupVariable("result").getValue().getValue());
+        Assertions.assertEquals(1, invocations[0]);
+        Assertions.assertSame(before, interpreter.getScope());
+    }
+
+    private static Stream<Arguments> testSwitchDispatch() {
+        return Stream.of(
+                Arguments.of("Jump Table", true, BigInteger.valueOf(150)),
+                Arguments.of("Linear", false, BigInteger.valueOf(150))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testDoubleDecimalSwitch(String test, boolean analyze) {
+        // FUN main(): Integer DO SWITCH 2.50 CASE 2.50: RETURN 1; DEFAULT RETURN 0; END END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Switch(new Ast.Expression.Literal(new BigDecimal("2.50")), Arrays.asList(
+                                new Ast.Statement.Case(Optional.of(new Ast.Expression.Literal(new BigDecimal("2.50"))), Arrays.asList(
+                                        new Ast.Statement.Return(new Ast.Expression.Literal(BigInteger.ONE))
+                                )),
+                                new Ast.Statement.Case(Optional.empty(), Arrays.asList(
+                                        new Ast.Statement.Return(new Ast.Expression.Literal(BigInteger.ZERO))
+                                ))
+                        ))
+                ))
+        ));
+        if (analyze) {
+            new Analyzer(new Scope(null)).visit(ast);
+        }
+
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setDoubleDecimals(true);
+        Assertions.assertEquals(BigInteger.ONE, interpreter.visit(ast).getValue());
+    }
+
+    private static Stream<Arguments> testDoubleDecimalSwitch() {
+        return Stream.of(
+                Arguments.of("Jump Table", true),
+                Arguments.of("Linear", false)
+        );
+    }
+
     @Test
     void testWhileStatement() {
         // WHILE num < 10 DO num = num + 1; END
@@ -363,6 +436,17 @@ final class InterpreterTests {
                         ),
                         BigInteger.valueOf(11)
                 ),
+                // 2147483647 * 2147483647 * 2147483647
+                Arguments.of("Multiplication Overflow",
+                        new Ast.Expression.Binary("*",
+                                new Ast.Expression.Binary("*",
+                                        new Ast.Expression.Literal(BigInteger.valueOf(Integer.MAX_VALUE)),
+                                        new Ast.Expression.Literal(BigInteger.valueOf(Integer.MAX_VALUE))
+                                ),
+                                new Ast.Expression.Literal(BigInteger.valueOf(Integer.MAX_VALUE))
+                        ),
+                        BigInteger.valueOf(Integer.MAX_VALUE).pow(3)
+                ),
                 // 1.2 / 3.4
                 Arguments.of("Division",
                         new Ast.Expression.Binary("/",
@@ -439,8 +523,288 @@ final class InterpreterTests {
         test(ast, expected, new Scope(null));
     }
 
+    @Test
+    void testMemoization() {
+        // FUN fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END
+        // FUN main(): Integer DO RETURN fib(40); END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("fib", Arrays.asList("n"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.If(
+                                new Ast.Expression.Binary("<",
+                                        new Ast.Expression.Access(Optional.empty(), "n"),
+                                        new Ast.Expression.Literal(BigInteger.valueOf(2))
+                                ),
+                                Arrays.asList(new Ast.Statement.Return(new Ast.Expression.Access(Optional.empty(), "n"))),
+                                Arrays.asList()
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Function("fib", Arrays.asList(new Ast.Expression.Binary("-",
+                                        new Ast.Expression.Access(Optional.empty(), "n"),
+                                        new Ast.Expression.Literal(BigInteger.ONE)
+                                ))),
+                                new Ast.Expression.Function("fib", Arrays.asList(new Ast.Expression.Binary("-",
+                                        new Ast.Expression.Access(Optional.empty(), "n"),
+                                        new Ast.Expression.Literal(BigInteger.valueOf(2))
+                                )))
+                        ))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Function("fib", Arrays.asList(new Ast.Expression.Literal(BigInteger.valueOf(40)))))
+                ))
+        ));
+        new Analyzer(new Scope(null)).visit(ast);
+
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setMemoization(64);
+        Assertions.assertEquals(BigInteger.valueOf(102334155), interpreter.visit(ast).getValue());
+
+        MemoCache memo = interpreter.getScope().lookupFunction("fib", 1).getMemoization();
+        Assertions.assertEquals(41, memo.getMisses());
+        Assertions.assertTrue(memo.getHits() > 0);
+    }
+
+    @Test
+    void testMemoizationAlias() {
+        // LIST table: Integer = [1];
+        // VAL alias: Integer = table;
+        // FUN first(xs: Integer): Integer DO RETURN xs[0]; END
+        // FUN get(): Integer DO RETURN first(alias); END
+        // FUN main(): Integer DO LET before = get(); table[0] = 5; RETURN before * 10 + get(); END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(
+                        new Ast.Global("table", "Integer", true, Optional.of(new Ast.Expression.PlcList(Arrays.asList(new Ast.Expression.Literal(BigInteger.ONE))))),
+                        new Ast.Global("alias", "Integer", false, Optional.of(new Ast.Expression.Access(Optional.empty(), "table")))
+                ),
+                Arrays.asList(
+                        new Ast.Function("first", Arrays.asList("xs"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Access(Optional.of(new Ast.Expression.Literal(BigInteger.ZERO)), "xs"))
+                        )),
+                        new Ast.Function("get", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Return(new Ast.Expression.Function("first", Arrays.asList(new Ast.Expression.Access(Optional.empty(), "alias"))))
+                        )),
+                        new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Statement.Declaration("before", Optional.empty(), Optional.of(new Ast.Expression.Function("get", Arrays.asList()))),
+                                new Ast.Statement.Assignment(
+                                        new Ast.Expression.Access(Optional.of(new Ast.Expression.Literal(BigInteger.ZERO)), "table"),
+                                        new Ast.Expression.Literal(BigInteger.valueOf(5))
+                                ),
+                                new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                        new Ast.Expression.Binary("*",
+                                                new Ast.Expression.Access(Optional.empty(), "before"),
+                                                new Ast.Expression.Literal(BigInteger.TEN)
+                                        ),
+                                        new Ast.Expression.Function("get", Arrays.asList())
+                                ))
+                        ))
+                )
+        );
+        new Analyzer(new Scope(null)).visit(ast);
+
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setMemoization(16);
+        Assertions.assertEquals(BigInteger.valueOf(15), interpreter.visit(ast).getValue());
+    }
+
+    @Test
+    void testTailCall() {
+        // FUN sum(n: Integer, total: Integer): Integer DO IF n == 0 DO RETURN total; END RETURN sum(n - 1, total + n); END
+        // FUN main(): Integer DO RETURN sum(100000, 0); END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("sum", Arrays.asList("n", "total"), Arrays.asList("Integer", "Integer"), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.If(
+                                new Ast.Expression.Binary("==",
+                                        new Ast.Expression.Access(Optional.empty(), "n"),
+                                        new Ast.Expression.Literal(BigInteger.ZERO)
+                                ),
+                                Arrays.asList(new Ast.Statement.Return(new Ast.Expression.Access(Optional.empty(), "total"))),
+                                Arrays.asList()
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Function("sum", Arrays.asList(
+                                new Ast.Expression.Binary("-",
+                                        new Ast.Expression.Access(Optional.empty(), "n"),
+                                        new Ast.Expression.Literal(BigInteger.ONE)
+                                ),
+                                new Ast.Expression.Binary("+",
+                                        new Ast.Expression.Access(Optional.empty(), "total"),
+                                        new Ast.Expression.Access(Optional.empty(), "n")
+                                )
+                        )))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Function("sum", Arrays.asList(
+                                new Ast.Expression.Literal(BigInteger.valueOf(100000)),
+                                new Ast.Expression.Literal(BigInteger.ZERO)
+                        )))
+                ))
+        ));
+        new Analyzer(new Scope(null)).visit(ast);
+        test(ast, BigInteger.valueOf(5000050000L), new Scope(null));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testBinaryInvocations(String test, Ast.Expression.Binary ast, int expected) {
+        int[] invocations = {0};
+        Scope scope = new Scope(null);
+        scope.defineFunction("number", 0, args -> {
+            invocations[0]++;
+            return Environment.create(BigInteger.ONE);
+        });
+        scope.defineFunction("flag", 0, args -> {
+            invocations[0]++;
+            return Environment.create(true);
+        });
+        new Interpreter(scope).visit(ast);
+        Assertions.assertEquals(expected, invocations[0]);
+    }
+
+    private static Stream<Arguments> testBinaryInvocations() {
+        Ast.Expression.Function number = new Ast.Expression.Function("number", Arrays.asList());
+        Ast.Expression.Function flag = new Ast.Expression.Function("flag", Arrays.asList());
+        return Stream.of(
+                // number() + number()
+                Arguments.of("Addition", new Ast.Expression.Binary("+", number, number), 2),
+                // number() < number()
+                Arguments.of("Comparison", new Ast.Expression.Binary("<", number, number), 2),
+                // (number() * number()) - (number() / number())
+                Arguments.of("Nested", new Ast.Expression.Binary("-",
+                        new Ast.Expression.Group(new Ast.Expression.Binary("*", number, number)),
+                        new Ast.Expression.Group(new Ast.Expression.Binary("/", number, number))
+                ), 4),
+                // flag() && flag()
+                Arguments.of("And", new Ast.Expression.Binary("&&", flag, flag), 2),
+                // FALSE && flag()
+                Arguments.of("And Short Circuit", new Ast.Expression.Binary("&&", new Ast.Expression.Literal(false), flag), 0),
+                // flag() || flag()
+                Arguments.of("Or Short Circuit", new Ast.Expression.Binary("||", flag, flag), 1)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testPrimitiveArithmetic(String test, Ast.Expression.Binary ast, Object expected) {
+        test(ast, expected, new Scope(null));
+    }
+
+    private static Stream<Arguments> testPrimitiveArithmetic() {
+        BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+        BigInteger min = BigInteger.valueOf(Long.MIN_VALUE);
+        return Stream.of(
+                Arguments.of("Addition Overflow",
+                        new Ast.Expression.Binary("+", new Ast.Expression.Literal(max), new Ast.Expression.Literal(BigInteger.ONE)),
+                        max.add(BigInteger.ONE)
+                ),
+                Arguments.of("Subtraction Overflow",
+                        new Ast.Expression.Binary("-", new Ast.Expression.Literal(min), new Ast.Expression.Literal(BigInteger.ONE)),
+                        min.subtract(BigInteger.ONE)
+                ),
+                Arguments.of("Multiplication Overflow",
+                        new Ast.Expression.Binary("*", new Ast.Expression.Literal(max), new Ast.Expression.Literal(max)),
+                        max.multiply(max)
+                ),
+                Arguments.of("Division Overflow",
+                        new Ast.Expression.Binary("/", new Ast.Expression.Literal(min), new Ast.Expression.Literal(BigInteger.valueOf(-1))),
+                        min.negate()
+                ),
+                Arguments.of("Negative Division",
+                        new Ast.Expression.Binary("/", new Ast.Expression.Literal(BigInteger.valueOf(-7)), new Ast.Expression.Literal(BigInteger.valueOf(2))),
+                        BigInteger.valueOf(-3)
+                ),
+                Arguments.of("Promoted Comparison",
+                        new Ast.Expression.Binary("<",
+                                new Ast.Expression.Literal(max),
+                                new Ast.Expression.Binary("+", new Ast.Expression.Literal(max), new Ast.Expression.Literal(BigInteger.ONE))
+                        ),
+                        true
+                )
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testPower(String test, Ast.Expression.Binary ast, Object expected) {
+        test(ast, expected, new Scope(null));
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setDoubleDecimals(true);
+        test(ast, expected, interpreter);
+    }
+
+    private static Stream<Arguments> testPower() {
+        return Stream.of(
+                Arguments.of("Integer",
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(BigInteger.valueOf(3)), new Ast.Expression.Literal(BigInteger.valueOf(13))),
+                        BigInteger.valueOf(1594323)
+                ),
+                Arguments.of("Long Minimum",
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(BigInteger.valueOf(-2)), new Ast.Expression.Literal(BigInteger.valueOf(63))),
+                        BigInteger.valueOf(Long.MIN_VALUE)
+                ),
+                Arguments.of("Overflow",
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(BigInteger.valueOf(2)), new Ast.Expression.Literal(BigInteger.valueOf(100))),
+                        BigInteger.valueOf(2).pow(100)
+                ),
+                Arguments.of("Large Exponent",
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(BigInteger.valueOf(-1)), new Ast.Expression.Literal(BigInteger.TEN.pow(20))),
+                        BigInteger.ONE
+                ),
+                Arguments.of("Negative Exponent",
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(BigInteger.valueOf(2)), new Ast.Expression.Literal(BigInteger.valueOf(-1))),
+                        BigInteger.ZERO
+                ),
+                Arguments.of("Zero Negative Exponent",
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(BigInteger.ZERO), new Ast.Expression.Literal(BigInteger.valueOf(-1))),
+                        null
+                ),
+                Arguments.of("Decimal",
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(new BigDecimal("1.5")), new Ast.Expression.Literal(BigInteger.valueOf(2))),
+                        new BigDecimal("2.25")
+                ),
+                Arguments.of("Decimal Negative Exponent",
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(new BigDecimal("2.0")), new Ast.Expression.Literal(BigInteger.valueOf(-2))),
+                        new BigDecimal("0.25")
+                ),
+                Arguments.of("Decimal Zero Negative Exponent",
+                        new Ast.Expression.Binary("^", new Ast.Expression.Literal(new BigDecimal("0.0")), new Ast.Expression.Literal(BigInteger.valueOf(-1))),
+                        null
+                )
+        );
+    }
+
+    @Test
+    void testDoubleDecimals() {
+        // 1.5 * 2.0 / 4.0
+        Ast.Expression ast = new Ast.Expression.Binary("/",
+                new Ast.Expression.Binary("*",
+                        new Ast.Expression.Literal(new BigDecimal("1.5")),
+                        new Ast.Expression.Literal(new BigDecimal("2.0"))
+                ),
+                new Ast.Expression.Literal(new BigDecimal("4.0"))
+        );
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setDoubleDecimals(true);
+        Environment.PlcObject result = interpreter.visit(ast);
+        Assertions.assertTrue(result.isDouble());
+        Assertions.assertEquals(new BigDecimal("0.75"), result.getValue());
+    }
+
+    @Test
+    void testDoubleDecimalOverflow() {
+        // 10.0 ^ 400
+        Ast.Expression ast = new Ast.Expression.Binary("^",
+                new Ast.Expression.Literal(new BigDecimal("10.0")),
+                new Ast.Expression.Literal(BigInteger.valueOf(400))
+        );
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        interpreter.setDoubleDecimals(true);
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(ast));
+        Assertions.assertEquals("The DECIMAL value Infinity is out of range!", exception.getMessage());
+    }
+
     private static Scope test(Ast ast, Object expected, Scope scope) {
-        Interpreter interpreter = new Interpreter(scope);
+        return test(ast, expected, new Interpreter(scope));
+    }
+
+    private static Scope test(Ast ast, Object expected, Interpreter interpreter) {
         if (expected != null) {
             Assertions.assertEquals(expected, interpreter.visit(ast).getValue());
         } else {
@@ -0,0 +1,129 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static plc.project.Asts.print;
+import static plc.project.Asts.run;
+
+final class JvmCompilerTests {
+
+    @Test
+    void testCompiled() {
+        // FUN half(x: Decimal): Decimal DO RETURN x / 2.0; END
+        // FUN main(): Integer DO
+        //     LET i = 0;
+        //     WHILE i < 3 DO print("i=" + i); i = i + 1; END
+        //     print(half(5.0));
+        //     RETURN 2 ^ 10;
+        // END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("half", Arrays.asList("x"), Arrays.asList("Decimal"), Optional.of("Decimal"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Binary("/",
+                                new Ast.Expression.Access(Optional.empty(), "x"),
+                                new Ast.Expression.Literal(new BigDecimal("2.0"))
+                        ))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Declaration("i", Optional.empty(), Optional.of(new Ast.Expression.Literal(BigInteger.ZERO))),
+                        new Ast.Statement.While(
+                                new Ast.Expression.Binary("<", new Ast.Expression.Access(Optional.empty(), "i"), new Ast.Expression.Literal(BigInteger.valueOf(3))),
+                                Arrays.asList(
+                                        print(new Ast.Expression.Binary("+", new Ast.Expression.Literal("i="), new Ast.Expression.Access(Optional.empty(), "i"))),
+                                        new Ast.Statement.Assignment(
+                                                new Ast.Expression.Access(Optional.empty(), "i"),
+                                                new Ast.Expression.Binary("+", new Ast.Expression.Access(Optional.empty(), "i"), new Ast.Expression.Literal(BigInteger.ONE))
+                                        )
+                                )
+                        ),
+                        print(new Ast.Expression.Function("half", Arrays.asList(new Ast.Expression.Literal(new BigDecimal("5.0"))))),
+                        new Ast.Statement.Return(new Ast.Expression.Binary("^",
+                                new Ast.Expression.Literal(BigInteger.valueOf(2)),
+                                new Ast.Expression.Literal(BigInteger.TEN)
+                        ))
+                ))
+        ));
+        new Analyzer(new Scope(null)).visit(ast);
+
+        String output = String.join(System.lineSeparator(), "i=0", "i=1", "i=2", "2.5", "");
+        Assertions.assertEquals(BigInteger.valueOf(1024), run(() -> new Interpreter(new Scope(null)).visit(ast), output));
+        JvmCompiler compiler = new JvmCompiler(new Scope(null));
+        Assertions.assertEquals(BigInteger.valueOf(1024), run(() -> compiler.run(ast), output));
+        Assertions.assertEquals(Optional.empty(), compiler.getFallbackReason());
+    }
+
+    @Test
+    void testFallback() {
+        // FUN main(): Integer DO LET list = [1]; RETURN list[0]; END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Declaration("list", Optional.empty(), Optional.of(new Ast.Expression.PlcList(Arrays.asList(
+                                new Ast.Expression.Literal(BigInteger.ONE)
+                        )))),
+                        new Ast.Statement.Return(new Ast.Expression.Access(Optional.of(new Ast.Expression.Literal(BigInteger.ZERO)), "list"))
+                ))
+        ));
+
+        JvmCompiler compiler = new JvmCompiler(new Scope(null));
+        Assertions.assertEquals(BigInteger.ONE, compiler.run(ast).getValue());
+        Assertions.assertTrue(compiler.getFallbackReason().isPresent());
+    }
+
+    @Test
+    void testRuntimeError() {
+        // FUN main(): Integer DO RETURN 1 / 0; END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Binary("/",
+                                new Ast.Expression.Literal(BigInteger.ONE),
+                                new Ast.Expression.Literal(BigInteger.ZERO)
+                        ))
+                ))
+        ));
+        new Analyzer(new Scope(null)).visit(ast);
+
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> new JvmCompiler(new Scope(null)).run(ast));
+        Assertions.assertEquals("Cannot divide by 0", exception.getMessage());
+    }
+
+    @ParameterizedTest(name = "{0} ^ {1}")
+    @MethodSource
+    void testPower(long base, long exponent, long expected) {
+        // FUN main(): Integer DO RETURN base ^ exponent; END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Binary("^",
+                                new Ast.Expression.Literal(BigInteger.valueOf(base)),
+                                new Ast.Expression.Literal(BigInteger.valueOf(exponent))
+                        ))
+                ))
+        ));
+        new Analyzer(new Scope(null)).visit(ast);
+
+        Assertions.assertEquals(BigInteger.valueOf(expected), new Interpreter(new Scope(null)).visit(ast).getValue());
+        JvmCompiler compiler = new JvmCompiler(new Scope(null));
+        Assertions.assertEquals(BigInteger.valueOf(expected), compiler.run(ast).getValue());
+        Assertions.assertEquals(Optional.empty(), compiler.getFallbackReason());
+    }
+
+    private static Stream<Arguments> testPower() {
+        return Stream.of(
+                Arguments.of(2, 10, 1024),
+                Arguments.of(3, 0, 1),
+                Arguments.of(2, -1, 0),
+                Arguments.of(1, -5, 1),
+                Arguments.of(-1, -3, -1),
+                Arguments.of(-1, 4, 1)
+        );
+    }
+
+}
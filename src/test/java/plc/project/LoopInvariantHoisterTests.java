@@ -0,0 +1,203 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static plc.project.Asts.access;
+import static plc.project.Asts.binary;
+import static plc.project.Asts.declaration;
+import static plc.project.Asts.literal;
+import static plc.project.Asts.main;
+
+final class LoopInvariantHoisterTests {
+
+    @Test
+    void testInvariant() {
+        // VAR limit = 10;
+        // FUN main(): Integer DO
+        //     LET n = 5; LET total = 0; LET i = 0;
+        //     WHILE i < n * 2 DO total = total + (n * 3 + limit); i = i + 1; END
+        //     RETURN total;
+        // END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(new Ast.Global("limit", "Integer", true, Optional.of(literal(10)))),
+                Arrays.asList(new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        declaration("n", literal(5)),
+                        declaration("total", literal(0)),
+                        declaration("i", literal(0)),
+                        new Ast.Statement.While(
+                                binary("<", access("i"), binary("*", access("n"), literal(2))),
+                                Arrays.asList(
+                                        new Ast.Statement.Assignment(access("total"), binary("+", access("total"),
+                                                new Ast.Expression.Group(binary("+", binary("*", access("n"), literal(3)), access("limit")))
+                                        )),
+                                        new Ast.Statement.Assignment(access("i"), binary("+", access("i"), literal(1)))
+                                )
+                        ),
+                        new Ast.Statement.Return(access("total"))
+                )))
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        LoopInvariantHoister hoister = new LoopInvariantHoister();
+        Ast.Source optimized = (Ast.Source) hoister.visit(ast);
+
+        Assertions.assertEquals(2, hoister.getHoisted());
+        List<Ast.Statement> statements = optimized.getFunctions().get(0).getStatements();
+        Assertions.assertEquals(7, statements.size());
+        Assertions.assertEquals("$licm0", ((Ast.Statement.Declaration) statements.get(3)).getName());
+        Assertions.assertEquals("$licm1", ((Ast.Statement.Declaration) statements.get(4)).getName());
+        Assertions.assertEquals(BigInteger.valueOf(250), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testShared() {
+        // LET n = 5; LET total = 0; LET i = 0;
+        // WHILE i < n * 2 DO total = total + n * 2; i = i + 1; END
+        Ast.Source ast = main("Integer",
+                declaration("n", literal(5)),
+                declaration("total", literal(0)),
+                declaration("i", literal(0)),
+                new Ast.Statement.While(
+                        binary("<", access("i"), binary("*", access("n"), literal(2))),
+                        Arrays.asList(
+                                new Ast.Statement.Assignment(access("total"), binary("+", access("total"), binary("*", access("n"), literal(2)))),
+                                new Ast.Statement.Assignment(access("i"), binary("+", access("i"), literal(1)))
+                        )
+                ),
+                new Ast.Statement.Return(access("total"))
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        LoopInvariantHoister hoister = new LoopInvariantHoister();
+        Ast.Source optimized = (Ast.Source) hoister.visit(ast);
+
+        Assertions.assertEquals(1, hoister.getHoisted());
+        Assertions.assertEquals(6, optimized.getFunctions().get(0).getStatements().size());
+        Assertions.assertEquals(BigInteger.valueOf(100), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testVariant() {
+        // VAR g = 1;
+        // FUN bump() DO g = g + 1; END
+        // FUN main(): Integer DO
+        //     LET total = 0; LET i = 0;
+        //     WHILE i < 3 DO bump(); total = total + g * 2 + i * 2 + 10 / 2; i = i + 1; END
+        //     RETURN total;
+        // END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(new Ast.Global("g", "Integer", true, Optional.of(literal(1)))),
+                Arrays.asList(
+                        new Ast.Function("bump", Arrays.asList(), Arrays.asList(), Optional.empty(), Arrays.asList(
+                                new Ast.Statement.Assignment(access("g"), binary("+", access("g"), literal(1)))
+                        )),
+                        new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                declaration("total", literal(0)),
+                                declaration("i", literal(0)),
+                                new Ast.Statement.While(
+                                        binary("<", access("i"), literal(3)),
+                                        Arrays.asList(
+                                                new Ast.Statement.Expression(new Ast.Expression.Function("bump", Arrays.asList())),
+                                                new Ast.Statement.Assignment(access("total"), binary("+",
+                                                        binary("+",
+                                                                binary("+", access("total"), binary("*", access("g"), literal(2))),
+                                                                binary("*", access("i"), literal(2))
+                                                        ),
+                                                        binary("/", literal(10), literal(2))
+                                                )),
+                                                new Ast.Statement.Assignment(access("i"), binary("+", access("i"), literal(1)))
+                                        )
+                                ),
+                                new Ast.Statement.Return(access("total"))
+                        ))
+                )
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        LoopInvariantHoister hoister = new LoopInvariantHoister();
+        Ast.Source optimized = (Ast.Source) hoister.visit(ast);
+
+        Assertions.assertEquals(0, hoister.getHoisted());
+        Assertions.assertEquals(ast, optimized);
+        Assertions.assertEquals(BigInteger.valueOf(39), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testRerun() {
+        // FUN main(): Integer DO
+        //     LET n = 5; LET $licm0 = n * 2; LET total = $licm0; LET i = 0;
+        //     WHILE i < 3 DO total = total + n * 3; i = i + 1; END
+        //     RETURN total;
+        // END
+        // with $licm0 left by an earlier run of the pass
+        Ast.Source ast = main("Integer",
+                declaration("n", literal(5)),
+                declaration("$licm0", binary("*", access("n"), literal(2))),
+                declaration("total", access("$licm0")),
+                declaration("i", literal(0)),
+                new Ast.Statement.While(
+                        binary("<", access("i"), literal(3)),
+                        Arrays.asList(
+                                new Ast.Statement.Assignment(access("total"), binary("+", access("total"), binary("*", access("n"), literal(3)))),
+                                new Ast.Statement.Assignment(access("i"), binary("+", access("i"), literal(1)))
+                        )
+                ),
+                new Ast.Statement.Return(access("total"))
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        LoopInvariantHoister hoister = new LoopInvariantHoister();
+        Ast.Source optimized = (Ast.Source) hoister.visit(ast);
+
+        Assertions.assertEquals(1, hoister.getHoisted());
+        List<Ast.Statement> statements = optimized.getFunctions().get(0).getStatements();
+        Assertions.assertEquals("$licm1", ((Ast.Statement.Declaration) statements.get(4)).getName());
+        Assertions.assertEquals(BigInteger.valueOf(55), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testUninitialized() {
+        // FUN main(): Integer DO
+        //     LET n: Integer; LET i = 0;
+        //     WHILE i > 0 DO i = i + (n * 2); END
+        //     RETURN i;
+        // END
+        Ast.Source ast = main("Integer",
+                new Ast.Statement.Declaration("n", Optional.of("Integer"), Optional.empty()),
+                declaration("i", literal(0)),
+                new Ast.Statement.While(
+                        binary(">", access("i"), literal(0)),
+                        Arrays.asList(new Ast.Statement.Assignment(access("i"), binary("+", access("i"), new Ast.Expression.Group(binary("*", access("n"), literal(2))))))
+                ),
+                new Ast.Statement.Return(access("i"))
+        );
+
+        new Analyzer(new Scope(null)).visit(ast);
+        LoopInvariantHoister hoister = new LoopInvariantHoister();
+        Ast.Source optimized = (Ast.Source) hoister.visit(ast);
+
+        Assertions.assertEquals(0, hoister.getHoisted());
+        Assertions.assertEquals(ast, optimized);
+        Assertions.assertEquals(BigInteger.ZERO, new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    @Test
+    void testUnanalyzed() {
+        // WHILE i < n * 2 DO i = i + 1; END
+        Ast.Statement.While ast = new Ast.Statement.While(
+                binary("<", access("i"), binary("*", access("n"), literal(2))),
+                Arrays.asList(new Ast.Statement.Assignment(access("i"), binary("+", access("i"), literal(1))))
+        );
+
+        LoopInvariantHoister hoister = new LoopInvariantHoister();
+        Assertions.assertEquals(ast, hoister.visit(ast));
+        Assertions.assertEquals(0, hoister.getHoisted());
+    }
+
+}
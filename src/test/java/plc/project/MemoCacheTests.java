@@ -0,0 +1,41 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+final class MemoCacheTests {
+
+    @Test
+    void testHitsAndMisses() {
+        MemoCache cache = new MemoCache(4);
+        Assertions.assertNull(cache.get(Arrays.asList(BigInteger.ONE)));
+        cache.put(Arrays.asList(BigInteger.ONE), Environment.create(BigInteger.TEN));
+        Assertions.assertEquals(BigInteger.TEN, cache.get(Arrays.asList(BigInteger.ONE)).getValue());
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        MemoCache cache = new MemoCache(2);
+        cache.put(Arrays.asList("a"), Environment.create("a"));
+        cache.put(Arrays.asList("b"), Environment.create("b"));
+        cache.get(Arrays.asList("a"));
+        cache.put(Arrays.asList("c"), Environment.create("c"));
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertNotNull(cache.get(Arrays.asList("a")));
+        Assertions.assertNull(cache.get(Arrays.asList("b")));
+        Assertions.assertNotNull(cache.get(Arrays.asList("c")));
+    }
+
+    @Test
+    void testImpureFunction() {
+        Environment.Function function = new Environment.Function("print", 1, args -> Environment.NIL);
+        Assertions.assertThrows(RuntimeException.class, () -> function.setMemoization(8));
+    }
+
+}
@@ -0,0 +1,100 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+final class PrimitiveListTests {
+
+    @Test
+    void testIntegers() {
+        List<Object> list = PrimitiveList.of(Environment.Type.INTEGER, Arrays.asList(
+                Environment.create(BigInteger.ONE),
+                Environment.create(BigInteger.TEN)
+        ));
+        Assertions.assertTrue(list instanceof PrimitiveList);
+        Assertions.assertEquals(Arrays.asList(BigInteger.ONE, BigInteger.TEN), list);
+
+        ((PrimitiveList) list).setValue(0, Environment.createInteger(5));
+        Assertions.assertTrue(((PrimitiveList) list).getValue(0).isLong());
+        Assertions.assertEquals(BigInteger.valueOf(5), list.get(0));
+        Assertions.assertTrue(((PrimitiveList) list).isPrimitive());
+    }
+
+    @Test
+    void testIntegerOverflow() {
+        List<Object> list = PrimitiveList.of(Environment.Type.INTEGER, Arrays.asList(
+                Environment.create(BigInteger.ONE),
+                Environment.create(BigInteger.TEN)
+        ));
+        BigInteger large = BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE);
+        ((PrimitiveList) list).setValue(1, Environment.create(large));
+        Assertions.assertFalse(((PrimitiveList) list).isPrimitive());
+        Assertions.assertEquals(Arrays.asList(BigInteger.ONE, large), list);
+    }
+
+    @Test
+    void testCharacters() {
+        List<Object> list = PrimitiveList.of(Environment.Type.CHARACTER, Arrays.asList(
+                Environment.create('a'),
+                Environment.create('b')
+        ));
+        Assertions.assertTrue(list instanceof PrimitiveList);
+        list.set(1, 'c');
+        Assertions.assertEquals(Arrays.asList('a', 'c'), list);
+        Assertions.assertSame(((PrimitiveList) list).getValue(1), ((PrimitiveList) list).getValue(1));
+    }
+
+    @Test
+    void testDecimals() {
+        Assertions.assertFalse(PrimitiveList.of(Environment.Type.DECIMAL, Arrays.asList(
+                Environment.create(new BigDecimal("1.5"))
+        )) instanceof PrimitiveList);
+        Assertions.assertTrue(PrimitiveList.of(Environment.Type.DECIMAL, Arrays.asList(
+                Environment.createDecimal(1.5)
+        )) instanceof PrimitiveList);
+    }
+
+    @Test
+    void testBoxed() {
+        Assertions.assertFalse(PrimitiveList.of(Environment.Type.STRING, Arrays.asList(
+                Environment.create("string")
+        )) instanceof PrimitiveList);
+    }
+
+    @Test
+    void testInterpreter() {
+        // LIST list: Integer = [1, 2, 3];
+        // FUN main(): Integer DO list[1] = list[0] + list[2]; RETURN list[1]; END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(new Ast.Global("list", "Integer", true, Optional.of(new Ast.Expression.PlcList(Arrays.asList(
+                        new Ast.Expression.Literal(BigInteger.ONE),
+                        new Ast.Expression.Literal(BigInteger.valueOf(2)),
+                        new Ast.Expression.Literal(BigInteger.valueOf(3))
+                ))))),
+                Arrays.asList(new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Assignment(
+                                new Ast.Expression.Access(Optional.of(new Ast.Expression.Literal(BigInteger.ONE)), "list"),
+                                new Ast.Expression.Binary("+",
+                                        new Ast.Expression.Access(Optional.of(new Ast.Expression.Literal(BigInteger.ZERO)), "list"),
+                                        new Ast.Expression.Access(Optional.of(new Ast.Expression.Literal(BigInteger.valueOf(2))), "list")
+                                )
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Access(Optional.of(new Ast.Expression.Literal(BigInteger.ONE)), "list"))
+                )))
+        );
+        new Analyzer(new Scope(null)).visit(ast);
+
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Assertions.assertEquals(BigInteger.valueOf(4), interpreter.visit(ast).getValue());
+        Object list = interpreter.getScope().lookupVariable("list").getValue().getValue();
+        Assertions.assertTrue(list instanceof PrimitiveList);
+        Assertions.assertEquals(Arrays.asList(BigInteger.ONE, BigInteger.valueOf(4), BigInteger.valueOf(3)), list);
+    }
+
+}
@@ -0,0 +1,71 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+
+final class RopeTests {
+
+    @Test
+    void testAppend() {
+        Rope rope = Rope.of("a").append("b").append("c");
+        Assertions.assertEquals(3, rope.length());
+        Assertions.assertEquals("abc", rope.toString());
+    }
+
+    @Test
+    void testShared() {
+        Rope prefix = Rope.of("a").append("b");
+        Rope first = prefix.append("c");
+        Rope second = prefix.append("d");
+        Assertions.assertEquals("ab", prefix.toString());
+        Assertions.assertEquals("abc", first.toString());
+        Assertions.assertEquals("abd", second.toString());
+        Assertions.assertEquals("abcd", first.append("d").toString());
+    }
+
+    @Test
+    void testConcatenation() {
+        Environment.PlcObject value = Operators.add(Environment.create("a"), Environment.create(BigInteger.ONE), false);
+        value = Operators.add(value, Environment.create('c'), false);
+        value = Operators.add(Environment.create(BigInteger.TEN), value, false);
+        Assertions.assertEquals("10a1c", value.getValue());
+        Assertions.assertEquals(0, Operators.compare(value, Environment.create("10a1c")));
+    }
+
+    @Test
+    void testLoop() {
+        // FUN main() DO
+        //     LET s = ""; LET i = 0;
+        //     WHILE i < 10000 DO s = s + "x"; i = i + 1; END
+        //     RETURN s;
+        // END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.empty(), Arrays.asList(
+                        new Ast.Statement.Declaration("s", Optional.empty(), Optional.of(new Ast.Expression.Literal(""))),
+                        new Ast.Statement.Declaration("i", Optional.empty(), Optional.of(new Ast.Expression.Literal(BigInteger.ZERO))),
+                        new Ast.Statement.While(
+                                new Ast.Expression.Binary("<", new Ast.Expression.Access(Optional.empty(), "i"), new Ast.Expression.Literal(BigInteger.valueOf(10000))),
+                                Arrays.asList(
+                                        new Ast.Statement.Assignment(
+                                                new Ast.Expression.Access(Optional.empty(), "s"),
+                                                new Ast.Expression.Binary("+", new Ast.Expression.Access(Optional.empty(), "s"), new Ast.Expression.Literal("x"))
+                                        ),
+                                        new Ast.Statement.Assignment(
+                                                new Ast.Expression.Access(Optional.empty(), "i"),
+                                                new Ast.Expression.Binary("+", new Ast.Expression.Access(Optional.empty(), "i"), new Ast.Expression.Literal(BigInteger.ONE))
+                                        )
+                                )
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Access(Optional.empty(), "s"))
+                ))
+        ));
+
+        Object result = new Interpreter(new Scope(null)).visit(ast).getValue();
+        Assertions.assertEquals(new String(new char[10000]).replace('\0', 'x'), result);
+    }
+
+}
@@ -0,0 +1,89 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static plc.project.Asts.literal;
+
+final class ScalarReplacerTests {
+
+    @Test
+    void testReplaced() {
+        // FUN main(): Integer DO LET point = [3, 4]; point[1] = point[1] + 1; RETURN point[0] * point[1]; END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Declaration("point", Optional.empty(), Optional.of(list(3, 4))),
+                        new Ast.Statement.Assignment(element("point", 1), new Ast.Expression.Binary("+", element("point", 1), literal(1))),
+                        new Ast.Statement.Return(new Ast.Expression.Binary("*", element("point", 0), element("point", 1)))
+                ))
+        ));
+
+        new Analyzer(new Scope(null)).visit(ast);
+        ScalarReplacer replacer = new ScalarReplacer();
+        Ast.Source optimized = (Ast.Source) replacer.visit(ast);
+
+        Assertions.assertEquals(1, replacer.getReplaced());
+        List<Ast.Statement> statements = optimized.getFunctions().get(0).getStatements();
+        Assertions.assertEquals(4, statements.size());
+        Assertions.assertEquals("$point_0", ((Ast.Statement.Declaration) statements.get(0)).getName());
+        Assertions.assertEquals("$point_1", ((Ast.Expression.Access) ((Ast.Statement.Assignment) statements.get(2)).getReceiver()).getName());
+        Assertions.assertEquals(BigInteger.valueOf(15), new Interpreter(new Scope(null)).visit(optimized).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(15), new ClosureCompiler(new Scope(null)).run(optimized).getValue());
+    }
+
+    @Test
+    void testEscapes() {
+        // FUN first(list: Integer): Integer DO RETURN list[0]; END
+        // FUN main(): Integer DO
+        //     LET a = [1, 2]; LET b = [1, 2]; LET c = [1, 2]; LET i = 1;
+        //     LET alias = c; alias[0] = 9;
+        //     RETURN first(a) + b[i] + c[0];
+        // END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("first", Arrays.asList("list"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(element("list", 0))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Declaration("a", Optional.empty(), Optional.of(list(1, 2))),
+                        new Ast.Statement.Declaration("b", Optional.empty(), Optional.of(list(1, 2))),
+                        new Ast.Statement.Declaration("c", Optional.empty(), Optional.of(list(1, 2))),
+                        new Ast.Statement.Declaration("i", Optional.empty(), Optional.of(literal(1))),
+                        new Ast.Statement.Declaration("alias", Optional.empty(), Optional.of(new Ast.Expression.Access(Optional.empty(), "c"))),
+                        new Ast.Statement.Assignment(element("alias", 0), literal(9)),
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Binary("+",
+                                        new Ast.Expression.Function("first", Arrays.asList(new Ast.Expression.Access(Optional.empty(), "a"))),
+                                        new Ast.Expression.Access(Optional.of(new Ast.Expression.Access(Optional.empty(), "i")), "b")
+                                ),
+                                element("c", 0)
+                        ))
+                ))
+        ));
+
+        new Analyzer(new Scope(null)).visit(ast);
+        ScalarReplacer replacer = new ScalarReplacer();
+        Ast.Source optimized = (Ast.Source) replacer.visit(ast);
+
+        Assertions.assertEquals(0, replacer.getReplaced());
+        Assertions.assertEquals(ast, optimized);
+        Assertions.assertEquals(BigInteger.valueOf(12), new Interpreter(new Scope(null)).visit(optimized).getValue());
+    }
+
+    private static Ast.Expression.PlcList list(long... values) {
+        Ast.Expression[] literals = new Ast.Expression[values.length];
+        for (int i = 0; i < values.length; i++) {
+            literals[i] = literal(values[i]);
+        }
+        return new Ast.Expression.PlcList(Arrays.asList(literals));
+    }
+
+    private static Ast.Expression.Access element(String name, long index) {
+        return new Ast.Expression.Access(Optional.of(literal(index)), name);
+    }
+
+}
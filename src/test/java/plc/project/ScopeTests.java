@@ -0,0 +1,38 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+final class ScopeTests {
+
+    @Test
+    void testFunctionArity() {
+        Scope scope = new Scope(null);
+        Environment.Function unary = scope.defineFunction("f", 1, args -> Environment.NIL);
+        Environment.Function nullary = scope.defineFunction("f", 0, args -> Environment.NIL);
+        Environment.Function ternary = scope.defineFunction("f", 3, args -> Environment.NIL);
+        Assertions.assertSame(nullary, scope.lookupFunction("f", 0));
+        Assertions.assertSame(unary, scope.lookupFunction("f", 1));
+        Assertions.assertSame(ternary, scope.lookupFunction("f", 3));
+        Assertions.assertThrows(RuntimeException.class, () -> scope.lookupFunction("f", 2));
+        Assertions.assertThrows(RuntimeException.class, () -> scope.lookupFunction("f", 4));
+    }
+
+    @Test
+    void testFunctionRedefined() {
+        Scope scope = new Scope(null);
+        scope.defineFunction("f", 1, args -> Environment.NIL);
+        Assertions.assertThrows(RuntimeException.class, () -> scope.defineFunction("f", 1, args -> Environment.NIL));
+    }
+
+    @Test
+    void testFunctionParent() {
+        Scope parent = new Scope(null);
+        Environment.Function function = parent.defineFunction("f", 1, args -> Environment.NIL);
+        Scope child = new Scope(parent);
+        child.defineFunction("f", 0, args -> Environment.NIL);
+        Assertions.assertSame(function, child.lookupFunction("f", 1));
+        Assertions.assertSame(parent, child.lookupFunctionScope("f", 1));
+    }
+
+}
@@ -0,0 +1,181 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static plc.project.Asts.access;
+import static plc.project.Asts.literal;
+
+final class TieredInterpreterTests {
+
+    @Test
+    void testHotFunction() {
+        // FUN fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END
+        // FUN main(): Integer DO RETURN fib(15); END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("fib", Arrays.asList("n"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.If(
+                                new Ast.Expression.Binary("<", access("n"), literal(2)),
+                                Arrays.asList(new Ast.Statement.Return(access("n"))),
+                                Arrays.asList()
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Function("fib", Arrays.asList(new Ast.Expression.Binary("-", access("n"), literal(1)))),
+                                new Ast.Expression.Function("fib", Arrays.asList(new Ast.Expression.Binary("-", access("n"), literal(2))))
+                        ))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Function("fib", Arrays.asList(literal(15))))
+                ))
+        ));
+
+        TieredInterpreter interpreter = new TieredInterpreter(new Scope(null), 10, Runnable::run);
+        Assertions.assertEquals(BigInteger.valueOf(610), interpreter.visit(ast).getValue());
+        Assertions.assertTrue(interpreter.isCompiled("fib", 1));
+        Assertions.assertFalse(interpreter.isCompiled("main", 0));
+        Assertions.assertEquals(Integer.valueOf(1973), interpreter.getCalls().get("fib/1"));
+    }
+
+    @Test
+    void testHotLoop() {
+        // FUN sum(n: Integer): Integer DO LET total = 0; LET i = 0; WHILE i < n DO total = total + i; i = i + 1; END RETURN total; END
+        // FUN main(): Integer DO RETURN sum(100) + sum(100); END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("sum", Arrays.asList("n"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Declaration("total", Optional.empty(), Optional.of(literal(0))),
+                        new Ast.Statement.Declaration("i", Optional.empty(), Optional.of(literal(0))),
+                        new Ast.Statement.While(
+                                new Ast.Expression.Binary("<", access("i"), access("n")),
+                                Arrays.asList(
+                                        new Ast.Statement.Assignment(access("total"), new Ast.Expression.Binary("+", access("total"), access("i"))),
+                                        new Ast.Statement.Assignment(access("i"), new Ast.Expression.Binary("+", access("i"), literal(1)))
+                                )
+                        ),
+                        new Ast.Statement.Return(access("total"))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Function("sum", Arrays.asList(literal(100))),
+                                new Ast.Expression.Function("sum", Arrays.asList(literal(100)))
+                        ))
+                ))
+        ));
+
+        TieredInterpreter interpreter = new TieredInterpreter(new Scope(null), 50, Runnable::run);
+        Assertions.assertEquals(BigInteger.valueOf(9900), interpreter.visit(ast).getValue());
+        Assertions.assertTrue(interpreter.isCompiled("sum", 1));
+    }
+
+    @Test
+    void testCompiledTailCall() {
+        // FUN count(n: Integer, total: Integer): Integer DO IF n == 0 DO RETURN total; END RETURN count(n - 1, total + 1); END
+        // FUN main(): Integer DO RETURN count(1, 0) + count(1, 0) + count(100000, 0); END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("count", Arrays.asList("n", "total"), Arrays.asList("Integer", "Integer"), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.If(
+                                new Ast.Expression.Binary("==", access("n"), literal(0)),
+                                Arrays.asList(new Ast.Statement.Return(access("total"))),
+                                Arrays.asList()
+                        ),
+                        new Ast.Statement.Return(new Ast.Expression.Function("count", Arrays.asList(
+                                new Ast.Expression.Binary("-", access("n"), literal(1)),
+                                new Ast.Expression.Binary("+", access("total"), literal(1))
+                        )))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Binary("+",
+                                        new Ast.Expression.Function("count", Arrays.asList(literal(1), literal(0))),
+                                        new Ast.Expression.Function("count", Arrays.asList(literal(1), literal(0)))
+                                ),
+                                new Ast.Expression.Function("count", Arrays.asList(literal(100000), literal(0)))
+                        ))
+                ))
+        ));
+
+        new Analyzer(new Scope(null)).visit(ast);
+        TieredInterpreter interpreter = new TieredInterpreter(new Scope(null), 2, Runnable::run);
+        Assertions.assertEquals(BigInteger.valueOf(100002), interpreter.visit(ast).getValue());
+        Assertions.assertTrue(interpreter.isCompiled("count", 2));
+    }
+
+    @Test
+    void testDoubleDecimals() {
+        // FUN next(x: Decimal): Decimal DO RETURN x + 0.1; END
+        // FUN main(): Decimal DO
+        //     LET total = 0.0; LET i = 0;
+        //     WHILE i < 3 DO total = next(total); i = i + 1; END
+        //     RETURN total;
+        // END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("next", Arrays.asList("x"), Arrays.asList("Decimal"), Optional.of("Decimal"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+", access("x"), new Ast.Expression.Literal(new BigDecimal("0.1"))))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Decimal"), Arrays.asList(
+                        new Ast.Statement.Declaration("total", Optional.empty(), Optional.of(new Ast.Expression.Literal(new BigDecimal("0.0")))),
+                        new Ast.Statement.Declaration("i", Optional.empty(), Optional.of(literal(0))),
+                        new Ast.Statement.While(
+                                new Ast.Expression.Binary("<", access("i"), literal(3)),
+                                Arrays.asList(
+                                        new Ast.Statement.Assignment(access("total"), new Ast.Expression.Function("next", Arrays.asList(access("total")))),
+                                        new Ast.Statement.Assignment(access("i"), new Ast.Expression.Binary("+", access("i"), literal(1)))
+                                )
+                        ),
+                        new Ast.Statement.Return(access("total"))
+                ))
+        ));
+
+        TieredInterpreter interpreter = new TieredInterpreter(new Scope(null), 2, Runnable::run);
+        interpreter.setDoubleDecimals(true);
+        Assertions.assertEquals(BigDecimal.valueOf(0.1 + 0.1 + 0.1), interpreter.visit(ast).getValue());
+        Assertions.assertTrue(interpreter.isCompiled("next", 1));
+    }
+
+    @Test
+    void testCompileFailure() {
+        // FUN one(): Integer DO IF FALSE DO <a CASE outside a SWITCH> END RETURN 1; END
+        // FUN main(): Integer DO RETURN one() + one(); END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("one", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.If(
+                                new Ast.Expression.Literal(false),
+                                Arrays.asList(new Ast.Statement.Case(Optional.empty(), Arrays.asList())),
+                                Arrays.asList()
+                        ),
+                        new Ast.Statement.Return(literal(1))
+                )),
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(new Ast.Expression.Binary("+",
+                                new Ast.Expression.Function("one", Arrays.asList()),
+                                new Ast.Expression.Function("one", Arrays.asList())
+                        ))
+                ))
+        ));
+
+        TieredInterpreter interpreter = new TieredInterpreter(new Scope(null), 1, Runnable::run);
+        Assertions.assertEquals(BigInteger.valueOf(2), interpreter.visit(ast).getValue());
+        Assertions.assertFalse(interpreter.isCompiled("one", 0));
+        Assertions.assertTrue(interpreter.getFallbackReason("one", 0).get().contains("Unimplemented statement Case"));
+        Assertions.assertFalse(interpreter.getFallbackReason("main", 0).isPresent());
+    }
+
+    @Test
+    void testBelowThreshold() {
+        // FUN main(): Integer DO RETURN 1; END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                new Ast.Function("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Statement.Return(literal(1))
+                ))
+        ));
+
+        TieredInterpreter interpreter = new TieredInterpreter(new Scope(null));
+        Assertions.assertEquals(BigInteger.ONE, interpreter.visit(ast).getValue());
+        Assertions.assertFalse(interpreter.isCompiled("main", 0));
+    }
+
+}